@@ -0,0 +1,134 @@
+package org.andy.democloudgatewayresource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application on a random port against a seeded Postgres, for the JMH benchmarks. The servlet stack is
+ * needed because the security configuration is built from the web {@code HttpSecurity}.
+ * <p>
+ * Uses the instance given by {@code BENCH_JDBC_URL} (plus {@code BENCH_JDBC_USERNAME} / {@code BENCH_JDBC_PASSWORD})
+ * when set, otherwise starts an embedded one. Environment variables rather than system properties, so they reach
+ * the forked benchmark JVMs. The search migration needs the unaccent and pg_trgm contrib extensions.
+ * <p>
+ * A non-zero database RTT wraps the DataSource in {@link SimulatedLatencyDataSource}; the DataSource bulkhead is
+ * then not applied, which does not matter for these single-process measurements.
+ */
+public final class BenchmarkEnvironment implements AutoCloseable {
+
+    private final EmbeddedPostgres embedded;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(EmbeddedPostgres embedded, ConfigurableApplicationContext context) {
+        this.embedded = embedded;
+        this.context = context;
+    }
+
+    public static BenchmarkEnvironment start(int rows, String... properties) throws IOException {
+        return start(rows, Duration.ZERO, properties);
+    }
+
+    public static BenchmarkEnvironment start(int rows, Duration databaseRtt, String... properties) throws IOException {
+        EmbeddedPostgres embedded = null;
+        String url = System.getenv("BENCH_JDBC_URL");
+        String username = System.getenv().getOrDefault("BENCH_JDBC_USERNAME", "postgres");
+        String password = System.getenv().getOrDefault("BENCH_JDBC_PASSWORD", "");
+        if (url == null) {
+            embedded = EmbeddedPostgres.builder().start();
+            url = embedded.getJdbcUrl("postgres", "postgres");
+        }
+
+        List<String> settings = new ArrayList<>(List.of(
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + username,
+                "spring.datasource.password=" + password,
+                "server.port=0",
+                "app.email.sender=log",
+                "app.security.jwt.jwk-set-uri=http://localhost:1/jwks",
+                "logging.level.root=WARN"));
+        settings.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoCloudGatewayResourceApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .initializers(applicationContext -> {
+                    if (!databaseRtt.isZero()) {
+                        applicationContext.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                return bean instanceof DataSource dataSource
+                                        ? new SimulatedLatencyDataSource(dataSource, databaseRtt)
+                                        : bean;
+                            }
+                        });
+                    }
+                })
+                // As command line arguments, so they take precedence over application.yml
+                .run(settings.stream().map(setting -> "--" + setting).toArray(String[]::new));
+
+        seed(context.getBean(JdbcTemplate.class), rows);
+
+        // Benchmark threads are not the setup thread, so share one admin context across all of them
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("bench", "n/a", "ROLE_ADMIN"));
+
+        return new BenchmarkEnvironment(embedded, context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Username of the i-th seeded user, 1-based
+    public static String username(int i) {
+        return "USER%07d".formatted(i);
+    }
+
+    // Synthetic directory with Vietnamese names, one role per user and every tenth account disabled
+    private static void seed(JdbcTemplate jdbc, int rows) {
+        jdbc.execute("truncate table authorities, userinfo, users, username_sequence, email_outbox cascade");
+        jdbc.update("""
+                insert into users (username, password, enabled)
+                select 'USER' || lpad(i::text, 7, '0'), '{bcrypt}$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbench', i % 10 <> 0
+                from generate_series(1, ?) i""", rows);
+        jdbc.update("""
+                insert into authorities (username, authority)
+                select 'USER' || lpad(i::text, 7, '0'),
+                       (array['ROLE_ADMIN', 'ROLE_RECRUITER', 'ROLE_INTERVIEWER', 'ROLE_MANAGER'])[1 + i % 4]
+                from generate_series(1, ?) i""", rows);
+        jdbc.update("""
+                insert into userinfo (username, full_name, email, department, position, created_at, updated_at)
+                select 'USER' || lpad(i::text, 7, '0'),
+                       (array['Nguyễn', 'Trần', 'Lê', 'Phạm', 'Hoàng', 'Võ'])[1 + i % 6] || ' ' ||
+                       (array['Văn', 'Thị', 'Đức', 'Minh', 'Quốc'])[1 + i % 5] || ' ' ||
+                       (array['Anh', 'Bình', 'Cường', 'Dũng', 'Hằng', 'Hà', 'Hạnh'])[1 + i % 7],
+                       'user' || i || '@example.com',
+                       (array['IT', 'HR', 'Finance', 'Sales', 'Marketing'])[1 + i % 5],
+                       'Staff',
+                       now(),
+                       now()
+                from generate_series(1, ?) i""", rows);
+        jdbc.execute("analyze users, authorities, userinfo");
+    }
+
+    @Override
+    public void close() throws IOException {
+        SecurityContextHolder.clearContext();
+        context.close();
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+}
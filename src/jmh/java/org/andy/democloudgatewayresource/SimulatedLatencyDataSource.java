@@ -0,0 +1,71 @@
+package org.andy.democloudgatewayresource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds a fixed delay to every call that costs a network round trip to Postgres (statement execution, commit,
+ * rollback) and counts them, to approximate a database that is not on localhost.
+ */
+public class SimulatedLatencyDataSource extends DelegatingDataSource {
+
+    private static final Set<String> ROUND_TRIPS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch",
+            "commit", "rollback");
+
+    private static final AtomicLong roundTrips = new AtomicLong();
+
+    private final long rttNanos;
+
+    public SimulatedLatencyDataSource(DataSource targetDataSource, Duration rtt) {
+        super(targetDataSource);
+        this.rttNanos = rtt.toNanos();
+    }
+
+    public static long roundTrips() {
+        return roundTrips.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (ROUND_TRIPS.contains(method.getName())) {
+                roundTrips.incrementAndGet();
+                LockSupport.parkNanos(rttNanos);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Statements created by the connection need the same treatment
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy((Class<Object>) method.getReturnType(), result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,98 @@
+package org.andy.democloudgatewayresource.converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Full JwtAuthenticationConverter pass, as done by the resource server once per authenticated request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthoritiesConverterBenchmark {
+
+    private Jwt jwt;
+    private JwtAuthenticationConverter legacy;
+    private JwtAuthenticationConverter uncached;
+    private JwtAuthenticationConverter cached;
+
+    @Setup
+    public void setup() {
+        jwt = Jwt.withTokenValue("benchmark-token")
+                .header("alg", "RS256")
+                .subject("NGUYENVA1")
+                .claim("roles", List.of("ADMIN", "RECRUITER", "INTERVIEWER"))
+                .claim("scope", List.of("openid", "profile"))
+                .jti(UUID.randomUUID().toString())
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+
+        legacy = converter(new LegacyConverter());
+        uncached = converter(new UserJwtGrantedAuthoritiesConverter());
+        cached = converter(new CachingJwtGrantedAuthoritiesConverter(new UserJwtGrantedAuthoritiesConverter(), 10_000));
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken legacy() {
+        return legacy.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken uncached() {
+        return uncached.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cached() {
+        return cached.convert(jwt);
+    }
+
+    private static JwtAuthenticationConverter converter(Converter<Jwt, Collection<GrantedAuthority>> authorities) {
+        var converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
+    }
+
+    // The stream-based conversion this project shipped before authorities were cached, minus its INFO log line
+    private static final class LegacyConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+        @Override
+        public Collection<GrantedAuthority> convert(Jwt source) {
+            var roles = source.getClaimAsStringList("roles");
+            if (roles == null) {
+                return source.getClaimAsStringList("scope")
+                        .stream()
+                        .map(scope -> "SCOPE_" + scope)
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList());
+            }
+            return roles.stream()
+                    .map(role -> "ROLE_" + role)
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList());
+        }
+    }
+}
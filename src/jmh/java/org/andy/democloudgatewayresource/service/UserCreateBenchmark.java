@@ -0,0 +1,130 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.BenchmarkEnvironment;
+import org.andy.democloudgatewayresource.SimulatedLatencyDataSource;
+import org.andy.democloudgatewayresource.dto.UserRequestDTO;
+import org.jooq.DSLContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+// Latency of one create, and how many database round trips it costs, with the database rttMillis away.
+// BCrypt runs at cost 4 so the statements rather than hashing dominate.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserCreateBenchmark {
+
+    @Param({"0", "5"})
+    private int rttMillis;
+
+    private BenchmarkEnvironment environment;
+    private UserService userService;
+    private UsernameAllocator usernameAllocator;
+    private PasswordHashingService passwordHashingService;
+    private EmailService emailService;
+    private TransactionTemplate transactionTemplate;
+    private DSLContext dslContext;
+    private UserRequestDTO request;
+    private long roundTripsBefore;
+    private long creates;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = BenchmarkEnvironment.start(10_000, Duration.ofMillis(rttMillis), "app.security.bcrypt.strength=4");
+        userService = environment.getBean(UserService.class);
+        usernameAllocator = environment.getBean(UsernameAllocator.class);
+        passwordHashingService = environment.getBean(PasswordHashingService.class);
+        emailService = environment.getBean(EmailService.class);
+        transactionTemplate = environment.getBean(TransactionTemplate.class);
+        dslContext = environment.getBean(DSLContext.class);
+        request = UserRequestDTO.builder()
+                .fullName("Nguyễn Văn Benchmark")
+                .email("bench@example.com")
+                .dob(LocalDate.of(1990, 1, 1))
+                .role("interviewer")
+                .department("IT")
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        roundTripsBefore = SimulatedLatencyDataSource.roundTrips();
+        creates = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRoundTrips() {
+        if (rttMillis > 0 && creates > 0) {
+            System.out.printf("%n%.2f round trips per create%n",
+                    (double) (SimulatedLatencyDataSource.roundTrips() - roundTripsBefore) / creates);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    // Allocation, users, authorities, userinfo and outbox in one statement
+    @Benchmark
+    public String createUser() {
+        creates++;
+        return userService.createUser(request).username();
+    }
+
+    // The previous shape: allocation in its own transaction, then one INSERT per table and a commit
+    @Benchmark
+    public String createUserLegacy() {
+        creates++;
+        String password = UserService.generateRandomPassword();
+        String encodedPassword = passwordHashingService.hash(password);
+        String username = usernameAllocator.allocate(UserService.usernameBase(request.getFullName()));
+        transactionTemplate.executeWithoutResult(status -> {
+            dslContext.insertInto(USERS)
+                    .set(USERS.USERNAME, username)
+                    .set(USERS.PASSWORD, encodedPassword)
+                    .set(USERS.ENABLED, true)
+                    .execute();
+            dslContext.insertInto(AUTHORITIES)
+                    .set(AUTHORITIES.USERNAME, username)
+                    .set(AUTHORITIES.AUTHORITY, "ROLE_" + request.getRole().toUpperCase())
+                    .execute();
+            dslContext.insertInto(USERINFO)
+                    .set(USERINFO.USERNAME, username)
+                    .set(USERINFO.FULL_NAME, request.getFullName())
+                    .set(USERINFO.EMAIL, request.getEmail())
+                    .set(USERINFO.BIRTHDATE, request.getDob())
+                    .set(USERINFO.POSITION, request.getRole())
+                    .set(USERINFO.DEPARTMENT, request.getDepartment())
+                    .set(USERINFO.CREATED_AT, LocalDateTime.now())
+                    .set(USERINFO.UPDATED_AT, LocalDateTime.now())
+                    .execute();
+            emailService.queueRegistrationEmail(request.getEmail(), username, password);
+        });
+        return username;
+    }
+}
@@ -0,0 +1,74 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.andy.democloudgatewayresource.BenchmarkEnvironment;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.dto.UserinfoRows;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.sample.tables.Users.USERS;
+
+// Record-to-JSON cost of a 1000-row /users page; the rows are fetched once so only mapping and serialization are timed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserPageMappingBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private BenchmarkEnvironment environment;
+    private ObjectMapper objectMapper;
+    private Result<Record> page;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = BenchmarkEnvironment.start(10_000);
+        objectMapper = environment.getBean(ObjectMapper.class);
+        page = UserinfoSelect.from(environment.getBean(DSLContext.class))
+                .orderBy(USERS.USERNAME)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    // What getUsersPage did before: reflective fetchInto, then Jackson reflecting over the DTOs
+    @Benchmark
+    public byte[] reflectiveFetchInto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page.into(UserinfoResponseDTO.class));
+    }
+
+    // What getUserByUsername does now
+    @Benchmark
+    public byte[] recordMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page.map(UserinfoSelect.MAPPER));
+    }
+
+    // What getUsersPage and getUsersSlice do now
+    @Benchmark
+    public byte[] directRows() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new UserinfoRows(page));
+    }
+}
@@ -0,0 +1,153 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.BenchmarkEnvironment;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.record.PageCursor;
+import org.jooq.DSLContext;
+import org.jooq.SelectConditionStep;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+// Read paths of UserService against a seeded directory of the given size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String SEARCH = "Nguyễn Đức";
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    // Whether getUserByUsername is served by UserinfoCache or always goes to Postgres
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private BenchmarkEnvironment environment;
+    private UserService userService;
+    private DSLContext dslContext;
+    private String middleCursor;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = BenchmarkEnvironment.start(rows, "app.users.cache.maximum-size=" + (cache ? 10_000 : 0));
+        userService = environment.getBean(UserService.class);
+        dslContext = environment.getBean(DSLContext.class);
+        middleCursor = PageCursor.after(BenchmarkEnvironment.username(rows / 2), "").encode();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> firstPage() {
+        return userService.getUsersPage(0, PAGE_SIZE, "", "");
+    }
+
+    @Benchmark
+    public Map<String, Object> deepOffsetPage() {
+        return userService.getUsersPage(rows / 2 / PAGE_SIZE, PAGE_SIZE, "", "");
+    }
+
+    @Benchmark
+    public Map<String, Object> deepCursorPage() {
+        return userService.getUsersSlice(middleCursor, PAGE_SIZE, "", "", CountMode.ESTIMATE);
+    }
+
+    @Benchmark
+    public Map<String, Object> roleFilteredPage() {
+        return userService.getUsersPage(0, PAGE_SIZE, "", "ROLE_RECRUITER");
+    }
+
+    @Benchmark
+    public Map<String, Object> searchPage() {
+        return userService.getUsersPage(0, PAGE_SIZE, SEARCH, "");
+    }
+
+    // The baseline getUsersPage search, verbatim: every column, the count over the four-way likeIgnoreCase OR,
+    // and reflective fetchInto. It never unaccented, so both search benchmarks use the accented term, which the
+    // two paths match on the same users
+    @Benchmark
+    public Map<String, Object> searchPageLegacyLike() {
+        int pageNo = 0;
+        String pattern = "%" + SEARCH + "%";
+        SelectConditionStep<?> query = dslContext
+                .select(
+                        USERS.USERNAME,
+                        USERS.ENABLED,
+                        AUTHORITIES.AUTHORITY,
+                        USERINFO.FULL_NAME,
+                        USERINFO.PICTURE,
+                        USERINFO.EMAIL,
+                        USERINFO.EMAIL_VERIFIED,
+                        USERINFO.GENDER,
+                        USERINFO.BIRTHDATE,
+                        USERINFO.PHONE_NUMBER,
+                        USERINFO.PHONE_NUMBER_VERIFIED,
+                        USERINFO.ADDRESS,
+                        USERINFO.POSITION,
+                        USERINFO.DEPARTMENT,
+                        USERINFO.NOTE,
+                        USERINFO.UPDATED_AT,
+                        USERINFO.CREATED_AT
+                )
+                .from(USERS)
+                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+                .where(USERS.USERNAME.likeIgnoreCase(pattern)
+                        .or(USERINFO.FULL_NAME.likeIgnoreCase(pattern))
+                        .or(USERINFO.EMAIL.likeIgnoreCase(pattern))
+                        .or(USERINFO.DEPARTMENT.likeIgnoreCase(pattern)));
+
+        int totalItems = dslContext.fetchCount(query);
+        int totalPages = (int) Math.ceil((double) totalItems / PAGE_SIZE);
+
+        List<UserinfoResponseDTO> users = query
+                .orderBy(USERS.USERNAME.asc())
+                .limit(PAGE_SIZE)
+                .offset(pageNo * PAGE_SIZE)
+                .fetchInto(UserinfoResponseDTO.class);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", users);
+        response.put("totalPages", totalPages);
+        response.put("totalElements", totalItems);
+        response.put("currentPage", pageNo);
+        response.put("pageSize", PAGE_SIZE);
+        response.put("hasNext", pageNo < totalPages - 1);
+        response.put("hasPrevious", pageNo > 0);
+        return response;
+    }
+
+    @Benchmark
+    public UserinfoResponseDTO userByUsername() {
+        int i = 1 + ThreadLocalRandom.current().nextInt(rows);
+        return userService.getUserByUsername(BenchmarkEnvironment.username(i));
+    }
+}
@@ -0,0 +1,76 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.BenchmarkEnvironment;
+import org.jooq.DSLContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static nu.studer.sample.tables.Users.USERS;
+
+// Username and password generation done for every created user
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UsernameBenchmark {
+
+    private static final String[] BASES = {"NGUYENVA", "TRANTB", "LEDC", "PHAMMH", "HOANGQA", "USER"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private BenchmarkEnvironment environment;
+    private UsernameAllocator usernameAllocator;
+    private DSLContext dslContext;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = BenchmarkEnvironment.start(rows);
+        usernameAllocator = environment.getBean(UsernameAllocator.class);
+        dslContext = environment.getBean(DSLContext.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String allocateUsername() {
+        return usernameAllocator.allocate(BASES[ThreadLocalRandom.current().nextInt(BASES.length)]);
+    }
+
+    // The COUNT(*) LIKE 'BASE%' lookup the allocator replaced
+    @Benchmark
+    @Threads(8)
+    public String countUsernameLegacy() {
+        String base = BASES[ThreadLocalRandom.current().nextInt(BASES.length)];
+        int count = dslContext.selectCount()
+                .from(USERS)
+                .where(USERS.USERNAME.like(base + "%"))
+                .fetchOne(0, int.class);
+        return base + (count + 1);
+    }
+
+    @Benchmark
+    public String randomPassword() {
+        return UserService.generateRandomPassword();
+    }
+}
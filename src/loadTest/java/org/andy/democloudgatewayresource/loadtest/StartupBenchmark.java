@@ -0,0 +1,99 @@
+package org.andy.democloudgatewayresource.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Cold-start comparison: launches the application once per run for each mode, measures the time from process
+// start to the first 2xx from the target and the process RSS at that point, then stops it. Run through
+//   ./gradlew startupBenchmark -Pmodes=jvm,cds,native -Pruns=5
+// Each mode argument is name=command line. The bearer token is read from LOADTEST_TOKEN, and RSS from /proc,
+// so it is reported on Linux only. Application output goes to build/startup-<mode>.log.
+public class StartupBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        URI target = URI.create(args[0]);
+        int runs = Integer.parseInt(args[1]);
+        String token = System.getenv("LOADTEST_TOKEN");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(10)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        for (String mode : Arrays.copyOfRange(args, 2, args.length)) {
+            String name = mode.substring(0, mode.indexOf('='));
+            List<String> command = List.of(mode.substring(mode.indexOf('=') + 1).trim().split("\\s+"));
+            long[] millis = new long[runs];
+            long[] rssKb = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] sample = startOnce(command, new File("build/startup-" + name + ".log"), client, request);
+                millis[run] = sample[0];
+                rssKb[run] = sample[1];
+            }
+            Arrays.sort(millis);
+            Arrays.sort(rssKb);
+            System.out.printf("mode=%s runs=%d first request ms p50=%d min=%d max=%d rss MB p50=%.1f%n",
+                    name, runs, millis[runs / 2], millis[0], millis[runs - 1], rssKb[runs / 2] / 1024.0);
+        }
+    }
+
+    private static long[] startOnce(List<String> command, File log, HttpClient client, HttpRequest request)
+            throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(command.getFirst() + " exited with " + process.exitValue()
+                            + ", see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 == 2) {
+                        long elapsed = (System.nanoTime() - start) / 1_000_000;
+                        return new long[]{elapsed, rss(process.pid())};
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful response from " + request.uri() + " within "
+                    + STARTUP_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static long rss(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .findFirst()
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                    .orElse(0L);
+        }
+    }
+}
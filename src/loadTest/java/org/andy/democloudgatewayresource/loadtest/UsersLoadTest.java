@@ -0,0 +1,91 @@
+package org.andy.democloudgatewayresource.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load generator: every client is a virtual thread issuing requests back to back.
+// Run against a started application, e.g.
+//   ./gradlew loadTest -Ptarget=http://localhost:8081/users?pageSize=20 -Pclients=2000 -Pduration=60
+// Comma-separated targets are driven one after the other with the same clients and duration, which compares
+// the blocking and reactive reads on the same instance:
+//   ./gradlew loadTest -Ptarget=http://localhost:8081/users,http://localhost:8081/reactive/users
+// Platform threads against virtual threads with the database bulkhead is the same run against the application
+// started once with --spring.threads.virtual.enabled=false and once without.
+// The bearer token is read from LOADTEST_TOKEN.
+public class UsersLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        for (String target : args[0].split(",")) {
+            run(URI.create(target.trim()), clients, duration);
+        }
+    }
+
+    private static void run(URI target, int clients, Duration duration) throws Exception {
+        String token = System.getenv("LOADTEST_TOKEN");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(60)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        AtomicLong ok = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (var clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                clientThreads.submit(() -> {
+                    long[] own = new long[1 << 16];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() < 400) {
+                                ok.incrementAndGet();
+                            } else {
+                                failed.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                        if (n == own.length) {
+                            own = Arrays.copyOf(own, n * 2);
+                        }
+                        own[n++] = System.nanoTime() - start;
+                    }
+                    latencies.add(Arrays.copyOf(own, n));
+                });
+            }
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("target=%s clients=%d duration=%ss%n", target, clients, duration.toSeconds());
+        System.out.printf("requests ok=%d failed=%d throughput=%.1f req/s%n",
+                ok.get(), failed.get(), (ok.get() + failed.get()) / seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+                    percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -1,9 +1,18 @@
 package org.andy.democloudgatewayresource;
 
+import org.andy.democloudgatewayresource.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
+@EnableAsync
+@ImportRuntimeHints(NativeImageHints.class)
 public class DemoCloudGatewayResourceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,12 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@ConfigurationProperties("app.users.avatars")
+public record AvatarProperties(Path directory, List<Integer> sizes, DataSize maxUploadSize, long maxPixels,
+                               int threads, int queueCapacity) {
+}
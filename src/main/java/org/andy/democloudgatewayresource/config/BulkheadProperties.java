@@ -0,0 +1,10 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties("app.datasource.bulkhead")
+public record BulkheadProperties(boolean enabled, @DefaultValue("30s") Duration acquireTimeout) {
+}
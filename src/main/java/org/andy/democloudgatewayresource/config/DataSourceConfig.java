@@ -0,0 +1,52 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Sized from the Hikari pool, so the bulkhead never admits more callers than there are connections
+    @Bean
+    static BeanPostProcessor dataSourceBulkheadPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                // Bound directly: a post-processor must not pull the properties bean in this early
+                BulkheadProperties bulkhead = Binder.get(environment)
+                        .bindOrCreate("app.datasource.bulkhead", BulkheadProperties.class);
+                if (bulkhead.enabled()) {
+                    return new BulkheadDataSource(hikari, hikari.getMaximumPoolSize(), bulkhead.acquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // The primary pool's bulkhead; with read replicas enabled it sits behind the routing DataSource
+    @Bean
+    MeterBinder dataSourceBulkheadMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(BulkheadDataSource.class::isInstance)
+                .map(BulkheadDataSource.class::cast)
+                .findFirst()
+                .ifPresent(bulkhead -> {
+                    Gauge.builder("db.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+                            .register(registry);
+                    Gauge.builder("db.bulkhead.waiting", bulkhead, BulkheadDataSource::getQueueLength)
+                            .register(registry);
+                });
+    }
+}
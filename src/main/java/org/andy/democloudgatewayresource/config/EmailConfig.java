@@ -0,0 +1,22 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.resend.Resend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class EmailConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.email.sender", havingValue = "resend", matchIfMissing = true)
+    Resend resend(@Value("${app.email.resend.api-key}") String apiKey) {
+        if (apiKey.isBlank()) {
+            log.warn("RESEND_API_KEY is not set, registration mail will fail and be retried until it is");
+        }
+        return new Resend(apiKey);
+    }
+}
@@ -0,0 +1,17 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("app.email.outbox")
+public record EmailOutboxProperties(
+        int batchSize,
+        int concurrency,
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        Duration lease,
+        // base64 AES-256 key for the queued credential
+        String encryptionKey) {
+}
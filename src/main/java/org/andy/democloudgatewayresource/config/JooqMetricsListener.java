@@ -0,0 +1,98 @@
+package org.andy.democloudgatewayresource.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.Query;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.QOM;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-query latency and row counts, tagged by statement type and the table it is driven by
+public class JooqMetricsListener implements ExecuteListener {
+
+    private static final String START = JooqMetricsListener.class.getName() + ".start";
+    private static final String ROWS = JooqMetricsListener.class.getName() + ".rows";
+
+    private final MeterRegistry registry;
+
+    public JooqMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void start(ExecuteContext ctx) {
+        ctx.data(START, System.nanoTime());
+        ctx.data(ROWS, 0);
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        ctx.data(ROWS, (Integer) ctx.data(ROWS) + 1);
+    }
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        Long start = (Long) ctx.data(START);
+        if (start == null) {
+            return;
+        }
+
+        Tags tags = Tags.of(
+                "type", ctx.type().name().toLowerCase(),
+                "shape", shape(ctx),
+                "outcome", ctx.exception() == null ? "success" : "error");
+
+        Timer.builder("jooq.query")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // Affected rows for DML, fetched records for everything else (including lazy cursors)
+        int rows = ctx.rows() >= 0 ? ctx.rows() : (Integer) ctx.data(ROWS);
+        DistributionSummary.builder("jooq.query.rows")
+                .tags(tags)
+                .register(registry)
+                .record(rows);
+    }
+
+    // e.g. "select:users", "insert:email_outbox"; bounded by the number of tables, unlike the SQL text
+    private static String shape(ExecuteContext ctx) {
+        Query query = ctx.query();
+        if (query == null) {
+            return ctx.batchQueries().length > 0 ? "batch" : "plain";
+        }
+        Table<?> table = switch (query) {
+            case Select<?> select -> select.$from().isEmpty() ? null : select.$from().getFirst();
+            case QOM.Insert<?> insert -> insert.$into();
+            case QOM.Update<?> update -> update.$table();
+            case QOM.Delete<?> delete -> delete.$from();
+            default -> null;
+        };
+        return statement(query) + ":" + name(table);
+    }
+
+    private static String statement(Query query) {
+        return switch (query) {
+            case Select<?> ignored -> "select";
+            case QOM.Insert<?> ignored -> "insert";
+            case QOM.Update<?> ignored -> "update";
+            case QOM.Delete<?> ignored -> "delete";
+            default -> "other";
+        };
+    }
+
+    // Joins are named after their left-most table
+    private static String name(Table<?> table) {
+        while (table instanceof QOM.JoinTable<?, ?> join) {
+            table = join.$table1();
+        }
+        return table == null ? "none" : table.getName();
+    }
+}
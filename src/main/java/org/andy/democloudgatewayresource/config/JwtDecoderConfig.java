@@ -0,0 +1,82 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.text.ParseException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Replaces the lazily discovered issuer-uri decoder: keys are fetched at boot and kept fresh in the background
+@Configuration
+@Slf4j
+public class JwtDecoderConfig {
+
+    @Bean
+    JWKSource<SecurityContext> jwkSource(JwtDecoderProperties properties) throws IOException, ParseException {
+        JWKSourceBuilder<SecurityContext> builder = JWKSourceBuilder.<SecurityContext>create(
+                        URI.create(properties.jwkSetUri()).toURL())
+                .cache(properties.cacheTtl().toMillis(), properties.refreshTimeout().toMillis())
+                // Re-fetch shortly before the cached set expires, off the request path
+                .refreshAheadCache(properties.refreshAhead().toMillis(), true)
+                // An unknown kid triggers one shared refresh, at most once per interval
+                .rateLimited(properties.minRefreshInterval().toMillis());
+
+        if (properties.fallbackJwkSet() != null) {
+            try (InputStream input = properties.fallbackJwkSet().getInputStream()) {
+                builder = builder.failover(new ImmutableJWKSet<>(JWKSet.load(input)));
+            }
+        }
+
+        JWKSource<SecurityContext> jwkSource = builder.build();
+        prefetch(jwkSource, properties);
+        return jwkSource;
+    }
+
+    @Bean
+    JwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource, JwtDecoderProperties properties,
+                          @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuerUri) {
+        Set<JWSAlgorithm> algorithms = properties.jwsAlgorithms().stream()
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toUnmodifiableSet());
+        var jwtProcessor = new DefaultJWTProcessor<SecurityContext>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource));
+        // Claims are validated by Spring below, same as the auto-configured decoder
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        var jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return jwtDecoder;
+    }
+
+    // Warm the cache before the web server accepts traffic; an unreachable issuer must not block startup
+    private static void prefetch(JWKSource<SecurityContext> jwkSource, JwtDecoderProperties properties) {
+        try {
+            var keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            log.info("Pre-fetched {} signing keys from {}", keys.size(), properties.jwkSetUri());
+        } catch (KeySourceException e) {
+            log.warn("Could not pre-fetch signing keys from {}, will retry on first request",
+                    properties.jwkSetUri(), e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties("app.security.jwt")
+public record JwtDecoderProperties(
+        String jwkSetUri,
+        // accepted JWS algorithms, matched against the issuer's keys
+        List<String> jwsAlgorithms,
+        Duration cacheTtl,
+        Duration refreshTimeout,
+        Duration refreshAhead,
+        Duration minRefreshInterval,
+        Resource fallbackJwkSet) {
+}
@@ -0,0 +1,30 @@
+package org.andy.democloudgatewayresource.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.andy.democloudgatewayresource.converter.CachingJwtGrantedAuthoritiesConverter;
+import org.andy.democloudgatewayresource.service.UserinfoCache;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Picked up by the jOOQ auto-configuration and added to every DSLContext execution
+    @Bean
+    DefaultExecuteListenerProvider jooqMetricsListenerProvider(MeterRegistry registry) {
+        return new DefaultExecuteListenerProvider(new JooqMetricsListener(registry));
+    }
+
+    @Bean
+    MeterBinder userinfoCacheMetrics(UserinfoCache userinfoCache) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, userinfoCache.getNativeCache(), "userinfo");
+    }
+
+    @Bean
+    MeterBinder jwtAuthoritiesCacheMetrics(CachingJwtGrantedAuthoritiesConverter jwtAuthoritiesConverter) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, jwtAuthoritiesConverter.getNativeCache(), "jwt.authorities");
+    }
+}
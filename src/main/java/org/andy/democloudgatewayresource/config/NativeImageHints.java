@@ -0,0 +1,45 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+
+// Reflection a native image cannot see on its own: jOOQ instantiates the generated records reflectively,
+// and Jackson binds the DTOs, including the lombok builders, beyond the controller signatures Spring covers.
+// BulkheadDataSource hands out JDK proxies of Connection that forward each call reflectively.
+// Evaluated by processAot, so the packages are scanned at build time only
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final String[] PACKAGES = {
+            "nu/studer/sample/tables",
+            "org/andy/democloudgatewayresource/dto",
+            "org/andy/democloudgatewayresource/record"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        MetadataReaderFactory readers = new CachingMetadataReaderFactory(resolver);
+        hints.proxies().registerJdkProxy(Connection.class);
+        hints.reflection().registerType(Connection.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        try {
+            for (String pkg : PACKAGES) {
+                for (Resource resource : resolver.getResources("classpath*:" + pkg + "/**/*.class")) {
+                    String className = readers.getMetadataReader(resource).getClassMetadata().getClassName();
+                    hints.reflection().registerType(TypeReference.of(className), MemberCategory.values());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("app.security.hashing")
+public record PasswordHashingProperties(int threads, int queueCapacity) {
+}
@@ -0,0 +1,68 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Replaces the auto-configured DataSource with the primary and its read replicas behind a routing proxy.
+// The primary pool is still a bean, so the bulkhead post-processor and pool metrics apply to it as before
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      DataSourceProperties properties, ReplicaProperties replicas,
+                                                      BulkheadProperties bulkhead) {
+        Map<String, DataSource> targets = new LinkedHashMap<>();
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : replicas.urls()) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            String key = "replica-" + (pools.size() + 1);
+            pool.setPoolName(key);
+            pool.setMaximumPoolSize(replicas.maximumPoolSize());
+            pool.setReadOnly(true);
+            pools.add(pool);
+            targets.put(key, bulkhead.enabled()
+                    ? new BulkheadDataSource(pool, replicas.maximumPoolSize(), bulkhead.acquireTimeout())
+                    : pool);
+        }
+        return new ReplicaRoutingDataSource(primary, targets, pools, replicas.maxLag(), replicas.readYourWrites());
+    }
+
+    // Lazy, so the route is chosen at the first statement, after the transaction has been marked read-only
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routing) {
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routing) {
+        return registry -> Gauge.builder("db.replicas.healthy", routing, ReplicaRoutingDataSource::getHealthyReplicas)
+                .register(registry);
+    }
+}
@@ -0,0 +1,17 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Read replicas share spring.datasource.username and password with the primary
+@ConfigurationProperties("app.datasource.replicas")
+public record ReplicaProperties(boolean enabled,
+                                @DefaultValue List<String> urls,
+                                @DefaultValue("10") int maximumPoolSize,
+                                @DefaultValue("5s") Duration healthCheckInterval,
+                                @DefaultValue("10s") Duration maxLag,
+                                @DefaultValue("5s") Duration readYourWrites) {
+}
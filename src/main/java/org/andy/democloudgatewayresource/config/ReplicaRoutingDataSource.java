@@ -0,0 +1,143 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only transactions go round robin to the replicas that passed their last health check, everything
+// else to the primary. A caller who used the primary within the read-your-writes window keeps reading
+// from it, so replication lag never hides their own change from them
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    // Name for read-only transactions whose result outlives the request, such as cache entries and pages
+    // served under the directory ETag. They read the primary, so a lagging replica can never put a row from
+    // before a write back behind the invalidation, and they do not open a read-your-writes window
+    public static final String PRIMARY_READ = "primary-read";
+
+    private static final String PRIMARY = "primary";
+
+    // Seconds the replica is behind, 0 when it has replayed everything it received or is not in recovery
+    private static final String LAG_QUERY = """
+            select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else extract(epoch from now() - pg_last_xact_replay_timestamp()) end""";
+
+    private final Map<String, DataSource> replicas;
+    private final List<HikariDataSource> pools;
+    private final Duration maxLag;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+
+    // Empty until the first health check, so nothing is routed to a replica that was never reached
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, List<HikariDataSource> pools,
+                                    Duration maxLag, Duration readYourWrites) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.pools = List.copyOf(pools);
+        this.maxLag = maxLag;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWrites)
+                .maximumSize(100_000)
+                .build();
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String caller = currentCaller();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Anything outside a read-only transaction may write, so the caller's window (re)starts once that
+            // is visible: after the commit, or straight away for auto-commit statements
+            if (caller != null) {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            recentWriters.put(caller, Boolean.TRUE);
+                        }
+                    });
+                } else {
+                    recentWriters.put(caller, Boolean.TRUE);
+                }
+            }
+            return PRIMARY;
+        }
+        if (PRIMARY_READ.equals(TransactionSynchronizationManager.getCurrentTransactionName())) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty() || (caller != null && recentWriters.getIfPresent(caller) != null)) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval:5s}")
+    public void checkReplicas() {
+        List<String> up = new ArrayList<>();
+        replicas.forEach((key, replica) -> {
+            if (isHealthy(key, replica)) {
+                up.add(key);
+            }
+        });
+        if (!up.equals(healthy)) {
+            log.info("Routing reads to replicas {} of {}", up, replicas.keySet());
+        }
+        healthy = List.copyOf(up);
+    }
+
+    public int getHealthyReplicas() {
+        return healthy.size();
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private boolean isHealthy(String key, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet lag = statement.executeQuery(LAG_QUERY)) {
+            lag.next();
+            Duration behind = Duration.ofMillis(Math.round(lag.getDouble(1) * 1000));
+            if (behind.compareTo(maxLag) > 0) {
+                log.warn("Replica {} is {} behind the primary, taking it out of rotation", key, behind);
+                return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            log.warn("Replica {} failed its health check: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -1,10 +1,14 @@
 package org.andy.democloudgatewayresource.config;
 
+import jakarta.servlet.DispatcherType;
+import org.andy.democloudgatewayresource.converter.CachingJwtGrantedAuthoritiesConverter;
 import org.andy.democloudgatewayresource.converter.UserJwtGrantedAuthoritiesConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -33,6 +37,10 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize ->
                         authorize
                                 .requestMatchers(ALLOWED_URIS).permitAll()
+                                // content-addressed thumbnails are public so browsers and CDNs can cache them
+                                .requestMatchers(HttpMethod.GET, "/avatars/**").permitAll()
+                                // lets a 404 from a public path render instead of turning into a 401
+                                .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                                 .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2ResourceServer ->
@@ -46,14 +54,21 @@ public class SecurityConfig {
     // @formatter:on
 
     @Bean
-    public JwtAuthenticationConverter nsa2AuthenticationConverter() {
+    public JwtAuthenticationConverter nsa2AuthenticationConverter(
+            CachingJwtGrantedAuthoritiesConverter jwtAuthoritiesConverter) {
         var converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(new UserJwtGrantedAuthoritiesConverter());
+        converter.setJwtGrantedAuthoritiesConverter(jwtAuthoritiesConverter);
         return converter;
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    CachingJwtGrantedAuthoritiesConverter jwtAuthoritiesConverter(
+            @Value("${app.security.authorities-cache.maximum-size}") long authoritiesCacheSize) {
+        return new CachingJwtGrantedAuthoritiesConverter(new UserJwtGrantedAuthoritiesConverter(), authoritiesCacheSize);
+    }
+
+    @Bean
+    PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -0,0 +1,9 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("app.users.aggregates")
+public record UserAggregatesProperties(Duration reconcileInterval) {
+}
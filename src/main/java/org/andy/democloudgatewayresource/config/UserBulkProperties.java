@@ -0,0 +1,7 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("app.users.bulk")
+public record UserBulkProperties(int chunkSize) {
+}
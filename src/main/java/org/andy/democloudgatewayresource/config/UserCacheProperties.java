@@ -0,0 +1,13 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("app.users.cache")
+public record UserCacheProperties(long maximumSize, Duration ttl, Invalidation invalidation) {
+
+    // Cross-instance invalidation over Postgres LISTEN/NOTIFY
+    public record Invalidation(boolean enabled, String channel, Duration reconnectDelay) {
+    }
+}
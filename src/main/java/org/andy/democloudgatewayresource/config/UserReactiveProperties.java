@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// R2DBC pool behind /reactive/users; credentials are shared with spring.datasource
+@ConfigurationProperties("app.users.reactive")
+public record UserReactiveProperties(String url,
+                                     @DefaultValue("20") int maxPoolSize,
+                                     @DefaultValue("256") int fetchSize) {
+}
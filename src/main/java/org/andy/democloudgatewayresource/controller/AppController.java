@@ -1,20 +1,49 @@
 package org.andy.democloudgatewayresource.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.UserExportProperties;
+import org.andy.democloudgatewayresource.dto.UserBulkReportDTO;
+import org.andy.democloudgatewayresource.dto.UserBulkRequestDTO;
 import org.andy.democloudgatewayresource.dto.UserCredentialsDTO;
+import org.andy.democloudgatewayresource.dto.UserImportReportDTO;
 import org.andy.democloudgatewayresource.dto.UserRequestDTO;
+import org.andy.democloudgatewayresource.dto.UserStatsDTO;
 import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
 import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.exception.InvalidCursorException;
 import org.andy.democloudgatewayresource.record.User;
+import org.andy.democloudgatewayresource.service.CountMode;
+import org.andy.democloudgatewayresource.service.DirectoryVersion;
+import org.andy.democloudgatewayresource.service.ExportFormat;
+import org.andy.democloudgatewayresource.service.ImportFormat;
+import org.andy.democloudgatewayresource.service.UserAggregatesService;
+import org.andy.democloudgatewayresource.service.UserBulkService;
+import org.andy.democloudgatewayresource.service.UserExportService;
+import org.andy.democloudgatewayresource.service.UserImportService;
 import org.andy.democloudgatewayresource.service.UserService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,9 +53,29 @@ import java.util.Map;
 public class AppController {
 
     private final UserService userService;
-
-    public AppController(UserService userService) {
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final UserBulkService userBulkService;
+    private final UserAggregatesService userAggregatesService;
+    private final DirectoryVersion directoryVersion;
+    private final UserExportProperties exportProperties;
+
+    // Browsers keep the directory reads but revalidate them on every use, which If-None-Match turns into a 304
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    // Counts only move on writes and the periodic reconcile
+    private static final CacheControl STATS = CacheControl.maxAge(Duration.ofSeconds(10)).cachePrivate();
+
+    public AppController(UserService userService, UserImportService userImportService,
+                         UserExportService userExportService, UserBulkService userBulkService,
+                         UserAggregatesService userAggregatesService, DirectoryVersion directoryVersion,
+                         UserExportProperties exportProperties) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.userBulkService = userBulkService;
+        this.userAggregatesService = userAggregatesService;
+        this.directoryVersion = directoryVersion;
+        this.exportProperties = exportProperties;
     }
 
     @GetMapping("/secret")
@@ -69,10 +118,45 @@ public class AppController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/users/bulk/update-status")
+    public ResponseEntity<UserBulkReportDTO> updateUsersStatus(@RequestParam String status,
+                                                               @RequestBody UserBulkRequestDTO request) {
+        return ResponseEntity.ok(userBulkService.updateUsersStatus(request, status));
+    }
+
+    @PostMapping("/users/bulk/delete")
+    public ResponseEntity<UserBulkReportDTO> deleteUsers(@RequestBody UserBulkRequestDTO request) {
+        return ResponseEntity.ok(userBulkService.deleteUsers(request));
+    }
+
+    @GetMapping("/users/stats")
+    public ResponseEntity<UserStatsDTO> userStats() {
+        return ResponseEntity.ok().cacheControl(STATS).body(userAggregatesService.stats());
+    }
+
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             HttpServletRequest request) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        // Only this request gets the long timeout; async starts once the body is returned
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportProperties.timeout().toMillis());
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportFormat.filename("users")).build().toString())
+                .body(userExportService.exportUsers(exportFormat));
+    }
+
+    // A cache hit and a matching If-None-Match give a 304 without a query or serializing the body
     @GetMapping("/users/{username}")
     public ResponseEntity<UserinfoResponseDTO> getUser(@PathVariable String username) {
         UserinfoResponseDTO user = userService.getUserByUsername(username);
-        return ResponseEntity.ok(user);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (user != null) {
+            response.eTag(userEtag(user));
+        }
+        return response.body(user);
     }
 
     @GetMapping("/users")
@@ -80,14 +164,28 @@ public class AppController {
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(defaultValue = "") String filterBy,
-            @RequestParam(defaultValue = "") String filterRole) {
+            @RequestParam(defaultValue = "") String filterRole,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "estimate") String count,
+            ServletWebRequest request) {
         try {
             if (filterRole.equals("ALL")) {
                 filterRole = "";
             }
-            Map<String, Object> response = userService.getUsersPage(
-                    pageNo, pageSize, filterBy, filterRole);
+            // Checked before any query runs; the 304 keeps the ETag and Cache-Control set here
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            if (request.checkNotModified(directoryVersion.etag(pageNo, pageSize, filterBy, filterRole, cursor, count))) {
+                return null;
+            }
+            // Passing a cursor (empty for the first page) switches to keyset pagination
+            Map<String, Object> response = cursor == null
+                    ? userService.getUsersPage(pageNo, pageSize, filterBy, filterRole)
+                    : userService.getUsersSlice(cursor, pageSize, filterBy, filterRole, CountMode.from(count));
             return ResponseEntity.ok(response);
+        } catch (InvalidCursorException | IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             log.error("Error fetching employees", e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -102,15 +200,44 @@ public class AppController {
         return ResponseEntity.ok(credentials);
     }
 
+    @PostMapping(value = "/users/import", consumes = {ImportFormat.TEXT_CSV, ImportFormat.APPLICATION_NDJSON})
+    public ResponseEntity<UserImportReportDTO> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) {
+        UserImportReportDTO report = userImportService.importUsers(body, ImportFormat.fromContentType(contentType));
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping(value = "/users/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UserImportReportDTO> importUsersFile(@RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            UserImportReportDTO report = userImportService.importUsers(input, ImportFormat.fromFilename(file.getOriginalFilename()));
+            return ResponseEntity.ok(report);
+        }
+    }
+
     @PutMapping("/users/update/{username}")
     public ResponseEntity<?> updateUser(@PathVariable String username, @Validated @RequestBody UserinfoRequestDto userRequestDTO) {
         userService.updateUser(username, userRequestDTO);
         return ResponseEntity.ok().build();
     }
 
+    @PatchMapping("/users/{username}")
+    public ResponseEntity<UserinfoResponseDTO> patchUser(@PathVariable String username,
+                                                         @Validated @RequestBody UserinfoRequestDto patch) {
+        UserinfoResponseDTO user = userService.patchUser(username, patch);
+        return ResponseEntity.ok().eTag(userEtag(user)).body(user);
+    }
+
     @DeleteMapping("/users/delete/{username}")
     public ResponseEntity<?> deleteUser(@PathVariable String username) {
         userService.deleteUser(username);
         return ResponseEntity.ok().build();
     }
+
+    // USERINFO.UPDATED_AT versions the row; the status lives in USERS and is not covered by it
+    private static String userEtag(UserinfoResponseDTO user) {
+        Instant updatedAt = user.updatedAt() == null ? Instant.EPOCH : user.updatedAt().toInstant(ZoneOffset.UTC);
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt);
+        return "\"" + Long.toHexString(micros) + (user.enabled() ? "" : "-disabled") + "\"";
+    }
 }
@@ -0,0 +1,128 @@
+package org.andy.democloudgatewayresource.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.exception.AvatarNotFoundException;
+import org.andy.democloudgatewayresource.exception.InvalidAvatarException;
+import org.andy.democloudgatewayresource.service.AvatarService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+public class AvatarController {
+
+    // Avatar URLs are content addressed, so their bytes never change
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    // Tomcat's NIO connector hands files set through these attributes to sendfile(2) after the request returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final AvatarService avatarService;
+
+    public AvatarController(AvatarService avatarService) {
+        this.avatarService = avatarService;
+    }
+
+    // The part is only read once the request length has been checked against the avatar limit
+    @PutMapping(value = "/users/{username}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UserinfoResponseDTO> uploadAvatarFile(@PathVariable String username,
+                                                                MultipartHttpServletRequest request) throws IOException {
+        avatarService.checkUploadLength(request.getContentLengthLong());
+        MultipartFile file = request.getFile("file");
+        if (file == null) {
+            throw new InvalidAvatarException("Missing file part");
+        }
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(avatarService.upload(username, input));
+        }
+    }
+
+    @PutMapping(value = "/users/{username}/avatar",
+            consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE})
+    public ResponseEntity<UserinfoResponseDTO> uploadAvatar(@PathVariable String username, InputStream body) throws IOException {
+        return ResponseEntity.ok(avatarService.upload(username, body));
+    }
+
+    // The bytes go from the page cache to the socket: sendfile under Tomcat, FileChannel.transferTo otherwise
+    @GetMapping({"/avatars/{hash}", "/avatars/{hash}/{size}"})
+    public void getAvatar(@PathVariable String hash, @PathVariable(required = false) Integer size,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = avatarService.find(hash, size)
+                .orElseThrow(() -> new AvatarNotFoundException(request.getRequestURI()));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + hash + "-" + file.getFileName() + "\"")) {
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multipart byteranges aren't worth it for thumbnails; several ranges get the whole file
+                if (ranges.size() == 1) {
+                    start = ranges.getFirst().getRangeStart(length);
+                    end = ranges.getFirst().getRangeEnd(length) + 1;
+                    if (start >= end) {
+                        throw new IllegalArgumentException("Range starts after the end of the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(end - start);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position < end; ) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+}
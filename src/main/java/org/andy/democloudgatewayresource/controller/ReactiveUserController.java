@@ -0,0 +1,68 @@
+package org.andy.democloudgatewayresource.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.andy.democloudgatewayresource.config.UserExportProperties;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.service.ReactiveUserService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Read-only counterparts of the AppController directory reads, answered asynchronously from R2DBC
+@RestController
+@RequestMapping("/reactive/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService reactiveUserService;
+    private final UserExportProperties exportProperties;
+
+    public ReactiveUserController(ReactiveUserService reactiveUserService, UserExportProperties exportProperties) {
+        this.reactiveUserService = reactiveUserService;
+        this.exportProperties = exportProperties;
+    }
+
+    @GetMapping
+    public Mono<Map<String, Object>> getUsers(
+            @RequestParam(defaultValue = "0") Integer pageNo,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "") String filterBy,
+            @RequestParam(defaultValue = "") String filterRole) {
+        if (filterRole.equals("ALL")) {
+            filterRole = "";
+        }
+        return reactiveUserService.getUsersPage(pageNo, pageSize, filterBy, filterRole);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserinfoResponseDTO> streamUsers(@RequestParam(defaultValue = "") String filterBy,
+                                                 @RequestParam(defaultValue = "") String filterRole,
+                                                 HttpServletRequest request) {
+        // A whole-directory stream gets the export's timeout. The Flux handler sets its own when async starts,
+        // so it is replaced from there rather than before returning as /users/export does
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.registerDeferredResultInterceptor(ReactiveUserController.class, new DeferredResultProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, DeferredResult<T> deferredResult) {
+                asyncManager.getAsyncWebRequest().setTimeout(exportProperties.timeout().toMillis());
+            }
+        });
+        return reactiveUserService.streamUsers(filterBy, filterRole.equals("ALL") ? "" : filterRole);
+    }
+
+    @GetMapping("/{username}")
+    public Mono<UserinfoResponseDTO> getUser(@PathVariable String username) {
+        return reactiveUserService.getUserByUsername(username);
+    }
+}
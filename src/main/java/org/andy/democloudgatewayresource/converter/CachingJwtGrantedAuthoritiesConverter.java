@@ -0,0 +1,69 @@
+package org.andy.democloudgatewayresource.converter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+// Converts each access token once; later requests carrying the same token reuse the authorities until it expires
+public class CachingJwtGrantedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private static final Duration NO_EXPIRY_TTL = Duration.ofMinutes(5);
+
+    private final Converter<Jwt, Collection<GrantedAuthority>> delegate;
+    private final Cache<String, Entry> cache;
+
+    public CachingJwtGrantedAuthoritiesConverter(Converter<Jwt, Collection<GrantedAuthority>> delegate, long maximumSize) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt source) {
+        return cache.get(key(source), k -> new Entry(delegate.convert(source), source.getExpiresAt()))
+                .authorities();
+    }
+
+    public Cache<String, ?> getNativeCache() {
+        return cache;
+    }
+
+    // jti when the issuer sets one, otherwise the (already signature-verified) token itself
+    private static String key(Jwt jwt) {
+        return jwt.getId() != null ? jwt.getId() : jwt.getTokenValue();
+    }
+
+    private record Entry(Collection<GrantedAuthority> authorities, Instant expiresAt) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return NO_EXPIRY_TTL.toNanos();
+            }
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
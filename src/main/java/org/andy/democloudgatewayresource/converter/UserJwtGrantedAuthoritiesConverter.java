@@ -6,12 +6,18 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class UserJwtGrantedAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
+    // The set of roles and scopes is small, so every token shares one instance per authority
+    private static final Map<String, GrantedAuthority> CANONICAL = new ConcurrentHashMap<>();
+
     @Override
     public <U> Converter<Jwt, U> andThen(Converter<? super Collection<GrantedAuthority>, ? extends U> after) {
         return Converter.super.andThen(after);
@@ -20,22 +26,28 @@ public class UserJwtGrantedAuthoritiesConverter implements Converter<Jwt, Collec
     @Override
     public Collection<GrantedAuthority> convert(Jwt source) {
         var roles = source.getClaimAsStringList("roles");
-        log.info("roles: {}", roles);
+        if (log.isDebugEnabled()) {
+            log.debug("roles: {}", roles);
+        }
 
         // If roles are not present in the JWT token, then use the scopes as roles
         if (roles == null) {
-            return source.getClaimAsStringList("scope")
-                    .stream()
-                    .map(scope -> "SCOPE_" + scope)
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
+            return toAuthorities("SCOPE_", source.getClaimAsStringList("scope"));
         }
 
         // If roles are present in the JWT token, then use the roles as roles
-        return roles.stream()
-                .map(role -> "ROLE_" + role)
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return toAuthorities("ROLE_", roles);
+    }
+
+    private static List<GrantedAuthority> toAuthorities(String prefix, List<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+        for (String name : names) {
+            authorities.add(CANONICAL.computeIfAbsent(prefix + name, SimpleGrantedAuthority::new));
+        }
+        return List.copyOf(authorities);
     }
 
 }
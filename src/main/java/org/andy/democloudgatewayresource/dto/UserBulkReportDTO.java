@@ -0,0 +1,7 @@
+package org.andy.democloudgatewayresource.dto;
+
+public record UserBulkReportDTO(
+        long matched,     // usernames given, or users matching the filter
+        long updated,     // users whose status actually changed
+        int batches) {
+}
@@ -0,0 +1,18 @@
+package org.andy.democloudgatewayresource.dto;
+
+import java.util.List;
+
+// Either explicit usernames, or a department and/or role filter as used by the /users page
+public record UserBulkRequestDTO(
+        List<String> usernames,
+        String department,
+        String role) {
+
+    public boolean hasUsernames() {
+        return usernames != null && !usernames.isEmpty();
+    }
+
+    public boolean hasFilter() {
+        return (department != null && !department.isBlank()) || (role != null && !role.isBlank());
+    }
+}
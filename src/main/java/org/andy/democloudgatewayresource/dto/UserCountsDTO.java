@@ -0,0 +1,6 @@
+package org.andy.democloudgatewayresource.dto;
+
+public record UserCountsDTO(
+        long users,
+        long active) {
+}
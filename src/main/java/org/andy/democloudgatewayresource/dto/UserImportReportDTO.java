@@ -0,0 +1,14 @@
+package org.andy.democloudgatewayresource.dto;
+
+import lombok.Builder;
+import org.andy.democloudgatewayresource.record.UserImportResult;
+
+import java.util.List;
+
+@Builder
+public record UserImportReportDTO(
+        long total,
+        long imported,
+        long failed,
+        List<UserImportResult> results) {
+}
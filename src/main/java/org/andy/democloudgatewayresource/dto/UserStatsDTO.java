@@ -0,0 +1,12 @@
+package org.andy.democloudgatewayresource.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Users without a role or department are counted under the "" key
+public record UserStatsDTO(
+        UserCountsDTO total,
+        Map<String, UserCountsDTO> roles,
+        Map<String, UserCountsDTO> departments,
+        Instant reconciledAt) {
+}
@@ -1,27 +1,24 @@
 package org.andy.democloudgatewayresource.dto;
 
-import lombok.Data;
-
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-@Data
-public class UserinfoResponseDTO {
-    private String username;
-    private boolean enabled;
-    private String authority;
-    private String fullName;
-    private String picture;
-    private String email;
-    private Boolean emailVerified;
-    private String gender;
-    private LocalDate birthdate;
-    private String phoneNumber;
-    private Boolean phoneNumberVerified;
-    private String address;
-    private String position;
-    private String department;
-    private String note;
-    private LocalDateTime updatedAt;
-    private LocalDateTime createdAt;
-}
\ No newline at end of file
+public record UserinfoResponseDTO(
+        String username,
+        boolean enabled,
+        String authority,
+        String fullName,
+        String picture,
+        String email,
+        Boolean emailVerified,
+        String gender,
+        LocalDate birthdate,
+        String phoneNumber,
+        Boolean phoneNumberVerified,
+        String address,
+        String position,
+        String department,
+        String note,
+        LocalDateTime updatedAt,
+        LocalDateTime createdAt) {
+}
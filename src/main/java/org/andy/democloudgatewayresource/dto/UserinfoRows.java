@@ -0,0 +1,61 @@
+package org.andy.democloudgatewayresource.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.jooq.Record;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// A page of the user directory serialized straight from the jOOQ records, without a UserinfoResponseDTO per row.
+// Columns must be aliased to the UserinfoResponseDTO property names.
+@JsonSerialize(using = UserinfoRows.Serializer.class)
+public record UserinfoRows(List<? extends Record> rows) {
+
+    public int size() {
+        return rows.size();
+    }
+
+    public static void writeRow(JsonGenerator generator, Record row) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < row.size(); i++) {
+            generator.writeFieldName(row.field(i).getName());
+            writeValue(generator, row.get(i));
+        }
+        generator.writeEndObject();
+    }
+
+    // Covers every column type of the directory select without going through ObjectMapper per value;
+    // temporals use the same ISO formats as the JavaTimeModule serializers
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        switch (value) {
+            case null -> generator.writeNull();
+            case String s -> generator.writeString(s);
+            case Boolean b -> generator.writeBoolean(b);
+            case LocalDate d -> generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE.format(d));
+            case LocalDateTime t -> generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(t));
+            default -> generator.writeObject(value);
+        }
+    }
+
+    public static class Serializer extends StdSerializer<UserinfoRows> {
+
+        public Serializer() {
+            super(UserinfoRows.class);
+        }
+
+        @Override
+        public void serialize(UserinfoRows value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(value, value.size());
+            for (Record row : value.rows()) {
+                writeRow(generator, row);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.andy.democloudgatewayresource.event;
+
+import java.time.LocalDateTime;
+
+// Published by UserService once the user is inserted; delivered to listeners after commit
+public record UserCreated(String username, String authority, String department, String actor,
+                          LocalDateTime occurredAt) {
+}
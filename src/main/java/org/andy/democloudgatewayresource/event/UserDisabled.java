@@ -0,0 +1,7 @@
+package org.andy.democloudgatewayresource.event;
+
+import java.time.LocalDateTime;
+
+// Only published when the user was enabled before
+public record UserDisabled(String username, String actor, LocalDateTime occurredAt) {
+}
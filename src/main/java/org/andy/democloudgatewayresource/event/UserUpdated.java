@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.event;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// The userinfo columns a patch actually changed, keyed by column name
+public record UserUpdated(String username, Map<String, Change> changes, String actor, LocalDateTime occurredAt) {
+
+    public record Change(String from, String to) {
+    }
+}
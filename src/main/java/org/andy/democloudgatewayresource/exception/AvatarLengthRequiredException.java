@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.LENGTH_REQUIRED)
+public class AvatarLengthRequiredException extends RuntimeException {
+    public AvatarLengthRequiredException(String message) {
+        super(message);
+    }
+}
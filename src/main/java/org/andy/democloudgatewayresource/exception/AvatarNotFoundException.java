@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class AvatarNotFoundException extends RuntimeException {
+    public AvatarNotFoundException(String path) {
+        super("Avatar not found: " + path);
+    }
+}
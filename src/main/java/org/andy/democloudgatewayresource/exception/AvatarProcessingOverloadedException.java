@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AvatarProcessingOverloadedException extends RuntimeException {
+    public AvatarProcessingOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package org.andy.democloudgatewayresource.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConcurrentUserUpdateException extends RuntimeException {
+    public ConcurrentUserUpdateException(String username) {
+        super("User " + username + " was modified by someone else, reload and retry");
+    }
+}
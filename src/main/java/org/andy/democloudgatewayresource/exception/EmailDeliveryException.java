@@ -0,0 +1,7 @@
+package org.andy.democloudgatewayresource.exception;
+
+public class EmailDeliveryException extends RuntimeException {
+    public EmailDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package org.andy.democloudgatewayresource.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidAvatarException extends RuntimeException {
+    public InvalidAvatarException(String message) {
+        super(message);
+    }
+
+    public InvalidAvatarException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
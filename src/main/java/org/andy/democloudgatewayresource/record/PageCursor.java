@@ -0,0 +1,56 @@
+package org.andy.democloudgatewayresource.record;
+
+import org.andy.democloudgatewayresource.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset position: the (username, authority) row to seek from and the direction to read in.
+// A user with several roles has one row per role, so the username alone can't mark a page edge.
+// A null authority means past every row of that username.
+public record PageCursor(String username, String authority, boolean forward) {
+
+    private static final String FORWARD = "n:";
+    private static final String BACKWARD = "p:";
+    private static final char SEPARATOR = '\n';
+
+    public static PageCursor after(String username, String authority) {
+        return new PageCursor(username, authority, true);
+    }
+
+    public static PageCursor before(String username, String authority) {
+        return new PageCursor(username, authority, false);
+    }
+
+    public String encode() {
+        String raw = (forward ? FORWARD : BACKWARD) + username + (authority == null ? "" : SEPARATOR + authority);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for an empty cursor, meaning "start from the first page"
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor", e);
+        }
+        boolean forward;
+        if (raw.startsWith(FORWARD)) {
+            forward = true;
+        } else if (raw.startsWith(BACKWARD)) {
+            forward = false;
+        } else {
+            throw new InvalidCursorException("Malformed cursor", null);
+        }
+        String position = raw.substring(FORWARD.length());
+        // Cursors issued before the authority was added carry the username only
+        int separator = position.indexOf(SEPARATOR);
+        return separator < 0
+                ? new PageCursor(position, null, forward)
+                : new PageCursor(position.substring(0, separator), position.substring(separator + 1), forward);
+    }
+}
@@ -0,0 +1,4 @@
+package org.andy.democloudgatewayresource.record;
+
+public record RegistrationEmail(String recipient, String username, String password) {
+}
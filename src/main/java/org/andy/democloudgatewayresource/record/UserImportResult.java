@@ -0,0 +1,16 @@
+package org.andy.democloudgatewayresource.record;
+
+// Outcome of one input row of a bulk import; row numbers are 1-based and exclude the CSV header
+public record UserImportResult(long row, String status, String username, String error) {
+
+    public static final String IMPORTED = "IMPORTED";
+    public static final String FAILED = "FAILED";
+
+    public static UserImportResult imported(long row, String username) {
+        return new UserImportResult(row, IMPORTED, username, null);
+    }
+
+    public static UserImportResult failed(long row, String error) {
+        return new UserImportResult(row, FAILED, null, error);
+    }
+}
@@ -0,0 +1,255 @@
+package org.andy.democloudgatewayresource.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.AvatarProperties;
+import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.exception.AvatarLengthRequiredException;
+import org.andy.democloudgatewayresource.exception.AvatarProcessingOverloadedException;
+import org.andy.democloudgatewayresource.exception.InvalidAvatarException;
+import org.andy.democloudgatewayresource.exception.UserNotFoundException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Avatars are stored under the SHA-256 of the uploaded bytes, so a URL never changes meaning and can be
+// cached forever. Decoding and resizing are CPU and heap heavy, so like password hashing they run on a
+// bounded platform pool and overload becomes a fast 503
+@Service
+@Slf4j
+public class AvatarService {
+
+    public static final String URL_PREFIX = "/avatars/";
+    private static final String FORMAT = "jpg";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    // Boundaries and part headers of a single-file form
+    private static final long MULTIPART_OVERHEAD = 16 * 1024;
+
+    private final UserService userService;
+    private final AvatarProperties properties;
+    private final Path directory;
+    private final List<Integer> sizes;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+
+    public AvatarService(UserService userService, AvatarProperties properties, MeterRegistry registry) throws IOException {
+        this.userService = userService;
+        this.properties = properties;
+        this.directory = Files.createDirectories(properties.directory().toAbsolutePath().normalize());
+        this.sizes = properties.sizes().stream().sorted().toList();
+        int threads = properties.threads() > 0 ? properties.threads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "avatar-resize-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "avatar.resize");
+    }
+
+    // The upload is streamed to disk while it is hashed; only the resize step decodes it into memory
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserinfoResponseDTO upload(String username, InputStream input) throws IOException {
+        // An unknown user costs neither a temp file nor a resize
+        if (userService.getUserByUsername(username) == null) {
+            throw new UserNotFoundException(username);
+        }
+        Path upload = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            String hash = copyAndHash(input, upload);
+            if (!Files.isDirectory(avatarDirectory(hash))) {
+                resize(upload, hash);
+            } else {
+                log.debug("Avatar {} already stored", hash);
+            }
+            return userService.patchUser(username, UserinfoRequestDto.builder().picture(URL_PREFIX + hash).build());
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    // Multipart bodies are parsed lazily, so an oversized form is refused from its Content-Length before the
+    // servlet container spools it to disk under the much larger global multipart limit. A chunked form has no
+    // length to check, so it is refused outright
+    public void checkUploadLength(long contentLength) {
+        if (contentLength < 0) {
+            throw new AvatarLengthRequiredException("Avatar forms must be sent with a Content-Length");
+        }
+        if (contentLength > properties.maxUploadSize().toBytes() + MULTIPART_OVERHEAD) {
+            throw new InvalidAvatarException("Avatar is larger than " + properties.maxUploadSize());
+        }
+    }
+
+    // Resolved from the path alone; serving an avatar never reads the database
+    public Optional<Path> find(String hash, Integer size) {
+        int edge = size == null ? sizes.getLast() : size;
+        if (!HASH.matcher(hash).matches() || !sizes.contains(edge)) {
+            return Optional.empty();
+        }
+        Path file = avatarDirectory(hash).resolve(edge + "." + FORMAT);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private String copyAndHash(InputStream input, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long limit = properties.maxUploadSize().toBytes();
+        long copied = 0;
+        byte[] buffer = new byte[8192];
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                copied += read;
+                if (copied > limit) {
+                    throw new InvalidAvatarException("Avatar is larger than " + properties.maxUploadSize());
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        if (copied == 0) {
+            throw new InvalidAvatarException("Avatar is empty");
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void resize(Path upload, String hash) {
+        CompletableFuture<Void> thumbnails;
+        try {
+            thumbnails = CompletableFuture.runAsync(() -> writeThumbnails(upload, hash), executor);
+        } catch (RejectedExecutionException e) {
+            throw new AvatarProcessingOverloadedException("Avatar resize queue is full", e);
+        }
+        try {
+            thumbnails.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Every size is written to a staging directory that is renamed into place, so a stored hash is always complete
+    private void writeThumbnails(Path upload, String hash) {
+        Path target = avatarDirectory(hash);
+        Path staging = upload.resolveSibling(upload.getFileName() + ".d");
+        try {
+            BufferedImage source = decode(upload);
+            Files.createDirectories(staging);
+            for (int size : sizes) {
+                ImageIO.write(thumbnail(source, size), FORMAT, staging.resolve(size + "." + FORMAT).toFile());
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                if (!Files.isDirectory(target)) {
+                    throw e;
+                }
+                // An identical picture was stored concurrently
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                FileSystemUtils.deleteRecursively(staging);
+            } catch (IOException e) {
+                log.warn("Could not remove {}", staging, e);
+            }
+        }
+    }
+
+    private BufferedImage decode(Path upload) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(upload.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new InvalidAvatarException("Avatar is not a supported image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Dimensions come from the header, so decompression bombs are refused before any pixel is decoded
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > properties.maxPixels()) {
+                    throw new InvalidAvatarException("Avatar has more than " + properties.maxPixels() + " pixels");
+                }
+                return reader.read(0);
+            } catch (InvalidAvatarException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                // The upload is a local file, so anything the reader throws means malformed input: truncated
+                // streams end in EOFException, bad headers in unchecked exceptions from inside the JDK readers
+                throw new InvalidAvatarException("Avatar could not be decoded", e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Centre square crop; transparency is flattened onto white since JPEG has no alpha
+    private static BufferedImage thumbnail(BufferedImage source, int size) {
+        int edge = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - edge) / 2;
+        int y = (source.getHeight() - edge) / 2;
+        BufferedImage thumbnail = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, size, size);
+            graphics.drawImage(source, 0, 0, size, size, x, y, x + edge, y + edge, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    // Two-character fan-out keeps directories small
+    private Path avatarDirectory(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,15 @@
+package org.andy.democloudgatewayresource.service;
+
+// How the total number of matching users is reported for a cursor page
+public enum CountMode {
+    EXACT,      // SELECT COUNT(*) over the filtered join
+    ESTIMATE,   // planner row estimate from EXPLAIN, no scan
+    NONE;       // skip the total entirely
+
+    public static CountMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return ESTIMATE;
+        }
+        return CountMode.valueOf(value.trim().toUpperCase());
+    }
+}
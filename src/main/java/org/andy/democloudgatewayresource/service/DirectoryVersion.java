@@ -0,0 +1,29 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Changes whenever this instance sees the directory change: every UserinfoCache eviction (local writes after
+// commit and the notifications from other instances), every aggregates delta and every reconcile, which bounds
+// how long writes that were never announced can go unnoticed. Tags carry a per-instance epoch, so one issued by
+// another instance or before a restart never matches. Behind a load balancer without sticky sessions a
+// conditional GET that lands on another instance is therefore a full 200, never a wrong 304.
+@Component
+public class DirectoryVersion {
+
+    private final String epoch = HexFormat.of().toHexDigits(new SecureRandom().nextInt());
+    private final AtomicLong version = new AtomicLong();
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    // Strong ETag for a directory view, qualified by whatever selects the view (page, filters, ...)
+    public String etag(Object... view) {
+        return "\"" + epoch + "-" + version.get() + "-" + HexFormat.of().toHexDigits(Arrays.hashCode(view)) + "\"";
+    }
+}
@@ -0,0 +1,84 @@
+package org.andy.democloudgatewayresource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.EmailOutboxProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// AES-GCM for the generated password queued in EMAIL_OUTBOX, so the credential is never stored, backed up or
+// written to the WAL in plaintext. The dispatcher decrypts it just before handing the mail to the sender.
+@Component
+@Slf4j
+public class EmailCredentialCipher {
+
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey key;
+
+    public EmailCredentialCipher(EmailOutboxProperties properties, @Value("${app.email.sender:resend}") String sender) {
+        byte[] keyBytes;
+        if (properties.encryptionKey() == null || properties.encryptionKey().isBlank()) {
+            // Mail queued under a throwaway key can only be sent by this process and is lost on restart, which
+            // loses the only copy of the user's initial password. Only the local log sender may run without one.
+            if (!sender.equals("log")) {
+                throw new IllegalStateException("app.email.outbox.encryption-key (EMAIL_OUTBOX_KEY) must be set when "
+                        + "app.email.sender is " + sender + "; generate one with openssl rand -base64 32");
+            }
+            log.warn("app.email.outbox.encryption-key is not set, using a key that lives only as long as this process");
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(properties.encryptionKey());
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    public String encrypt(String plaintext) {
+        if (plaintext == null) {
+            return null;
+        }
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt the outbox credential", e);
+        }
+    }
+
+    // Rows queued before encryption was introduced still hold plaintext; they are cleared once sent
+    public String decrypt(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return stored;
+        }
+        ByteBuffer sealed = ByteBuffer.wrap(Base64.getDecoder().decode(stored.substring(PREFIX.length())));
+        byte[] iv = new byte[IV_BYTES];
+        sealed.get(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] plaintext = cipher.doFinal(sealed.array(), IV_BYTES, sealed.remaining());
+            return new String(plaintext, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not decrypt the outbox credential, was the key changed?", e);
+        }
+    }
+}
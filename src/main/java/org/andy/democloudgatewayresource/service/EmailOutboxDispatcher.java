@@ -0,0 +1,159 @@
+package org.andy.democloudgatewayresource.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import nu.studer.sample.tables.records.EmailOutboxRecord;
+import org.andy.democloudgatewayresource.config.EmailOutboxProperties;
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.impl.DSL;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static nu.studer.sample.tables.EmailOutbox.EMAIL_OUTBOX;
+
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    static final String PENDING = "PENDING";
+    static final String SENT = "SENT";
+    static final String DEAD = "DEAD";
+
+    private final DSLContext dslContext;
+    private final EmailSender emailSender;
+    private final EmailOutboxProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+    private final MeterRegistry registry;
+    private final EmailCredentialCipher cipher;
+
+    public EmailOutboxDispatcher(DSLContext dslContext, EmailSender emailSender, EmailOutboxProperties properties,
+                                 MeterRegistry registry, EmailCredentialCipher cipher) {
+        this.dslContext = dslContext;
+        this.emailSender = emailSender;
+        this.properties = properties;
+        this.cipher = cipher;
+        this.inFlight = new Semaphore(properties.concurrency());
+        this.registry = registry;
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval}")
+    public void drain() {
+        List<EmailOutboxRecord> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+            }
+        } while (batch.size() == properties.batchSize());
+    }
+
+    // Leases due rows by pushing NEXT_ATTEMPT_AT forward; SKIP LOCKED lets several instances drain in parallel
+    private List<EmailOutboxRecord> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return dslContext.update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, now.plus(properties.lease()))
+                .where(EMAIL_OUTBOX.ID.in(
+                        DSL.select(EMAIL_OUTBOX.ID)
+                                .from(EMAIL_OUTBOX)
+                                .where(EMAIL_OUTBOX.STATUS.eq(PENDING))
+                                .and(EMAIL_OUTBOX.NEXT_ATTEMPT_AT.le(now))
+                                .orderBy(EMAIL_OUTBOX.ID)
+                                .limit(properties.batchSize())
+                                .forUpdate()
+                                .skipLocked()))
+                .returning()
+                .fetch();
+    }
+
+    private void dispatch(List<EmailOutboxRecord> batch) {
+        List<CompletableFuture<Query>> outcomes = new ArrayList<>(batch.size());
+        for (EmailOutboxRecord message : batch) {
+            outcomes.add(CompletableFuture.supplyAsync(() -> deliver(message), executor));
+        }
+
+        // Record all outcomes of the batch in one round trip
+        dslContext.batch(outcomes.stream().map(CompletableFuture::join).toList()).execute();
+    }
+
+    private Query deliver(EmailOutboxRecord message) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return retryOrBury(message, e);
+        }
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            emailSender.send(new RegistrationEmail(message.getRecipient(), message.getUsername(),
+                    cipher.decrypt(message.getPassword())));
+            sample.stop(sendTimer("success"));
+            return dslContext.update(EMAIL_OUTBOX)
+                    .set(EMAIL_OUTBOX.STATUS, SENT)
+                    .set(EMAIL_OUTBOX.SENT_AT, LocalDateTime.now())
+                    .set(EMAIL_OUTBOX.ATTEMPTS, message.getAttempts() + 1)
+                    .setNull(EMAIL_OUTBOX.PASSWORD)
+                    .where(EMAIL_OUTBOX.ID.eq(message.getId()));
+        } catch (RuntimeException e) {
+            sample.stop(sendTimer("failure"));
+            return retryOrBury(message, e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("email.send")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Query retryOrBury(EmailOutboxRecord message, Exception e) {
+        int attempts = message.getAttempts() + 1;
+        if (attempts >= properties.maxAttempts()) {
+            registry.counter("email.outbox.dead").increment();
+            log.error("Giving up on registration email {} for {} after {} attempts",
+                    message.getId(), message.getUsername(), attempts, e);
+            return dslContext.update(EMAIL_OUTBOX)
+                    .set(EMAIL_OUTBOX.STATUS, DEAD)
+                    .set(EMAIL_OUTBOX.ATTEMPTS, attempts)
+                    .set(EMAIL_OUTBOX.LAST_ERROR, String.valueOf(e.getMessage()))
+                    .setNull(EMAIL_OUTBOX.PASSWORD)
+                    .where(EMAIL_OUTBOX.ID.eq(message.getId()));
+        }
+
+        registry.counter("email.outbox.retries").increment();
+        log.warn("Registration email {} for {} failed (attempt {}), retrying",
+                message.getId(), message.getUsername(), attempts, e);
+        return dslContext.update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.ATTEMPTS, attempts)
+                .set(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, LocalDateTime.now().plus(backoff(attempts)))
+                .set(EMAIL_OUTBOX.LAST_ERROR, String.valueOf(e.getMessage()))
+                .where(EMAIL_OUTBOX.ID.eq(message.getId()));
+    }
+
+    // initialBackoff * 2^(attempts - 1), capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = properties.initialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.maxBackoff()) > 0 ? properties.maxBackoff() : delay;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,9 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+
+public interface EmailSender {
+
+    // Throws EmailDeliveryException when the provider rejects or cannot be reached
+    void send(RegistrationEmail email);
+}
@@ -1,38 +1,66 @@
 package org.andy.democloudgatewayresource.service;
 
-import com.resend.Resend;
-import com.resend.core.exception.ResendException;
-import com.resend.services.emails.model.CreateEmailOptions;
-import com.resend.services.emails.model.CreateEmailResponse;
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.ResultQuery;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static nu.studer.sample.tables.EmailOutbox.EMAIL_OUTBOX;
+
 @Service
 public class EmailService {
-    public void sendRegistrationEmail(String email, String username, String password) {
-        Resend resend = new Resend("re_4UdgmH4v_9xM7jGAfu11YV4pwYHZG8Fy5");
-
-        CreateEmailOptions createEmailOptions = CreateEmailOptions.builder()
-                .from("IMS Team <admin@tayduong.works>")
-                .to(email)
-                .subject("no-reply-email-IMS-system <Account created>")
-                .html("""
-                        Your account has been created. Please use the following credentials to login:<br/>
-                            * User name: %s<br/>
-                            * Password: %s<br/>
-                        <br/>
-                        If anything is wrong, please reach out to the recruiter at <offer recruiter owner account>. We are so sorry for this inconvenience.
-                        <br/>
-                        Thanks & Regards,
-                        <br/>
-                        IMS Team""".formatted(username, password))
-                .build();
-
-        try {
-            CreateEmailResponse createEmailResponse = resend.emails().send(createEmailOptions);
-            createEmailResponse.getId();
-        } catch (ResendException e) {
-            e.printStackTrace();
-        }
 
+    private final DSLContext dslContext;
+    private final EmailCredentialCipher cipher;
+
+    public EmailService(DSLContext dslContext, EmailCredentialCipher cipher) {
+        this.dslContext = dslContext;
+        this.cipher = cipher;
+    }
+
+    // Joins the caller's transaction, so the mail only exists if the user does
+    public void queueRegistrationEmail(String email, String username, String password) {
+        dslContext.insertInto(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.RECIPIENT, email)
+                .set(EMAIL_OUTBOX.USERNAME, username)
+                .set(EMAIL_OUTBOX.PASSWORD, cipher.encrypt(password))
+                .set(EMAIL_OUTBOX.STATUS, EmailOutboxDispatcher.PENDING)
+                .set(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, LocalDateTime.now())
+                .execute();
+    }
+
+    // Queues one mail per row of source, for embedding as a CTE in the statement that creates the user
+    public ResultQuery<Record1<Long>> registrationEmailFrom(Table<?> source, Field<String> recipient,
+                                                           Field<String> username, String password) {
+        return dslContext.insertInto(EMAIL_OUTBOX,
+                        EMAIL_OUTBOX.RECIPIENT, EMAIL_OUTBOX.USERNAME, EMAIL_OUTBOX.PASSWORD,
+                        EMAIL_OUTBOX.STATUS, EMAIL_OUTBOX.NEXT_ATTEMPT_AT)
+                .select(DSL.select(recipient, username, DSL.val(cipher.encrypt(password), EMAIL_OUTBOX.PASSWORD),
+                                DSL.val(EmailOutboxDispatcher.PENDING), DSL.val(LocalDateTime.now()))
+                        .from(source))
+                .returningResult(EMAIL_OUTBOX.ID);
+    }
+
+    // Multi-row variant for bulk imports, same transactional guarantee
+    public void queueRegistrationEmails(List<RegistrationEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        var insert = dslContext.insertInto(EMAIL_OUTBOX,
+                EMAIL_OUTBOX.RECIPIENT, EMAIL_OUTBOX.USERNAME, EMAIL_OUTBOX.PASSWORD,
+                EMAIL_OUTBOX.STATUS, EMAIL_OUTBOX.NEXT_ATTEMPT_AT);
+        for (RegistrationEmail email : emails) {
+            insert = insert.values(email.recipient(), email.username(), cipher.encrypt(email.password()),
+                    EmailOutboxDispatcher.PENDING, now);
+        }
+        insert.execute();
     }
-}
\ No newline at end of file
+}
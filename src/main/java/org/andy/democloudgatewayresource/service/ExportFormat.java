@@ -0,0 +1,34 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.exception.InvalidExportFormatException;
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    CSV(ImportFormat.TEXT_CSV, "csv"),
+    NDJSON(ImportFormat.APPLICATION_NDJSON, "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return MediaType.parseMediaType(contentType);
+    }
+
+    public String filename(String name) {
+        return name + "." + extension;
+    }
+
+    public static ExportFormat from(String format) {
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new InvalidExportFormatException("Unsupported export format: " + format);
+    }
+}
@@ -0,0 +1,31 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = MediaType.APPLICATION_NDJSON_VALUE;
+
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.startsWith(TEXT_CSV)) {
+            return CSV;
+        }
+        if (contentType != null && contentType.startsWith(APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+
+    public static ImportFormat fromFilename(String filename) {
+        if (filename != null && filename.toLowerCase().endsWith(".csv")) {
+            return CSV;
+        }
+        if (filename != null && (filename.toLowerCase().endsWith(".ndjson") || filename.toLowerCase().endsWith(".jsonl"))) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import file: " + filename);
+    }
+}
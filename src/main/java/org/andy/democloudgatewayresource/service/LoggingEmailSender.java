@@ -0,0 +1,32 @@
+package org.andy.democloudgatewayresource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Local stand-in for Resend (app.email.sender=log), keeps what it "sent" for tests to inspect
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.email.sender", havingValue = "log")
+public class LoggingEmailSender implements EmailSender {
+
+    private final List<RegistrationEmail> sent = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(RegistrationEmail email) {
+        log.info("registration email to {} for {}", email.recipient(), email.username());
+        sent.add(email);
+    }
+
+    public List<RegistrationEmail> getSent() {
+        return List.copyOf(sent);
+    }
+
+    public void clear() {
+        sent.clear();
+    }
+}
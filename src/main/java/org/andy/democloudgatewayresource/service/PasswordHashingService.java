@@ -0,0 +1,90 @@
+package org.andy.democloudgatewayresource.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.andy.democloudgatewayresource.config.PasswordHashingProperties;
+import org.andy.democloudgatewayresource.exception.PasswordHashingOverloadedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt is pure CPU: a core-sized platform pool keeps it off virtual-thread carriers, and the
+// bounded queue turns overload into a fast 503 instead of an ever-growing backlog
+@Service
+public class PasswordHashingService {
+
+    private static final String ENCODING_ID = "{bcrypt}";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, PasswordHashingProperties properties,
+                                  MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        int threads = properties.threads() > 0 ? properties.threads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "password.hashing");
+    }
+
+    public CompletableFuture<String> hashAsync(String rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> ENCODING_ID + passwordEncoder.encode(rawPassword), executor);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingOverloadedException("Password hashing queue is full", e);
+        }
+    }
+
+    public String hash(String rawPassword) {
+        try {
+            return hashAsync(rawPassword).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Bulk callers wait for their own oldest hash when the queue is full rather than being rejected
+    public List<String> hashAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        int oldestPending = 0;
+        for (String rawPassword : rawPasswords) {
+            while (true) {
+                try {
+                    hashes.add(hashAsync(rawPassword));
+                    break;
+                } catch (PasswordHashingOverloadedException e) {
+                    if (oldestPending == hashes.size()) {
+                        // The queue is full of other callers' work
+                        throw e;
+                    }
+                    hashes.get(oldestPending++).join();
+                }
+            }
+        }
+        return hashes.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,106 @@
+package org.andy.democloudgatewayresource.service;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.andy.democloudgatewayresource.config.UserReactiveProperties;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.exception.UserNotFoundException;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static nu.studer.sample.tables.Users.USERS;
+
+// Non-blocking variant of the getUserByUsername and getUsersPage reads: the same jOOQ queries, executed over
+// an R2DBC pool so no thread or JDBC connection is held while the database works. The DSLContext is private
+// to this service, the JDBC one stays the only bean.
+@Service
+public class ReactiveUserService {
+
+    private final ConnectionPool pool;
+    private final DSLContext dslContext;
+    private final UserinfoCache userinfoCache;
+    private final UserAggregatesService userAggregates;
+    private final UserReactiveProperties properties;
+
+    public ReactiveUserService(UserReactiveProperties properties, DataSourceProperties dataSourceProperties,
+                               UserinfoCache userinfoCache, UserAggregatesService userAggregates) {
+        this.properties = properties;
+        this.userinfoCache = userinfoCache;
+        this.userAggregates = userAggregates;
+
+        String url = StringUtils.hasText(properties.url())
+                ? properties.url()
+                : dataSourceProperties.determineUrl().replaceFirst("^jdbc:", "r2dbc:");
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+        // Connections are opened on first use, not at startup
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(properties.maxPoolSize())
+                .build());
+        this.dslContext = DSL.using(pool, SQLDialect.POSTGRES);
+    }
+
+    // Cache hits are served as is; misses are read without populating the cache, which stays owned by UserService
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<UserinfoResponseDTO> getUserByUsername(String username) {
+        UserinfoResponseDTO cached = userinfoCache.getIfPresent(username);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.from(UserinfoSelect.from(dslContext).where(USERS.USERNAME.eq(username)))
+                .map(UserinfoSelect.MAPPER::map)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(username)));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<Map<String, Object>> getUsersPage(int pageNo, int pageSize, String filterBy, String filterRole) {
+        // Same count source as the blocking page: the in-memory aggregates unless searching
+        Long cachedCount = filterBy.isEmpty() ? userAggregates.count(filterRole) : null;
+        Mono<Integer> totalItems = cachedCount != null
+                ? Mono.just(cachedCount.intValue())
+                : Mono.from(dslContext.selectCount()
+                        .from(UserinfoSelect.filtered(dslContext, filterBy, filterRole)))
+                .map(count -> count.value1());
+
+        return totalItems.flatMap(total -> {
+            int page = UserService.validPageNo(pageNo, total, pageSize);
+            return Flux.from(UserinfoSelect.filtered(dslContext, filterBy, filterRole)
+                            .orderBy(UserinfoSelect.pageOrder(filterBy))
+                            .limit(pageSize)
+                            .offset(page * pageSize))
+                    .collectList()
+                    .map(users -> UserService.pageResponse(users, page, pageSize, total));
+        });
+    }
+
+    // The whole filtered directory in username order. Rows are pulled from the database only as fast as the
+    // client reads them, fetch-size at a time.
+    @PreAuthorize("hasRole('ADMIN')")
+    public Flux<UserinfoResponseDTO> streamUsers(String filterBy, String filterRole) {
+        Flux<Record> rows = Flux.from(UserinfoSelect.filtered(dslContext, filterBy, filterRole)
+                .orderBy(UserinfoSelect.pageOrder(filterBy))
+                .fetchSize(properties.fetchSize()));
+        return rows.limitRate(properties.fetchSize())
+                .map(UserinfoSelect.MAPPER::map);
+    }
+
+    @PreDestroy
+    void close() {
+        pool.dispose();
+    }
+}
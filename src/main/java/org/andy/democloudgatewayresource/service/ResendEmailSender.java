@@ -0,0 +1,45 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.resend.Resend;
+import com.resend.core.exception.ResendException;
+import com.resend.services.emails.model.CreateEmailOptions;
+import org.andy.democloudgatewayresource.exception.EmailDeliveryException;
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "app.email.sender", havingValue = "resend", matchIfMissing = true)
+public class ResendEmailSender implements EmailSender {
+
+    private final Resend resend;
+
+    public ResendEmailSender(Resend resend) {
+        this.resend = resend;
+    }
+
+    @Override
+    public void send(RegistrationEmail email) {
+        CreateEmailOptions createEmailOptions = CreateEmailOptions.builder()
+                .from("IMS Team <admin@tayduong.works>")
+                .to(email.recipient())
+                .subject("no-reply-email-IMS-system <Account created>")
+                .html("""
+                        Your account has been created. Please use the following credentials to login:<br/>
+                            * User name: %s<br/>
+                            * Password: %s<br/>
+                        <br/>
+                        If anything is wrong, please reach out to the recruiter at <offer recruiter owner account>. We are so sorry for this inconvenience.
+                        <br/>
+                        Thanks & Regards,
+                        <br/>
+                        IMS Team""".formatted(email.username(), email.password()))
+                .build();
+
+        try {
+            resend.emails().send(createEmailOptions);
+        } catch (ResendException e) {
+            throw new EmailDeliveryException("Failed to send registration email to " + email.recipient(), e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.andy.democloudgatewayresource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.dto.UserCountsDTO;
+import org.andy.democloudgatewayresource.dto.UserStatsDTO;
+import org.andy.democloudgatewayresource.event.UserCreated;
+import org.andy.democloudgatewayresource.event.UserDisabled;
+import org.andy.democloudgatewayresource.event.UserEnabled;
+import org.andy.democloudgatewayresource.event.UserUpdated;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+// In-memory user counts in total, per role and per department, over the same join as the /users page.
+// Deltas are applied after commit, from the user lifecycle events or directly by the batch write paths; the
+// scheduled reconcile replaces everything with fresh counts, which also picks up writes made by other instances.
+@Service
+@Slf4j
+public class UserAggregatesService {
+
+    private static final String NONE = "";
+
+    private static final Field<Integer> COUNT = DSL.count();
+    private static final Field<Integer> ACTIVE = DSL.count().filterWhere(USERS.ENABLED).as("active");
+
+    private final DSLContext dslContext;
+    private final DirectoryVersion directoryVersion;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile Counters counters;
+
+    public UserAggregatesService(DSLContext dslContext, DirectoryVersion directoryVersion) {
+        this.dslContext = dslContext;
+        this.directoryVersion = directoryVersion;
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.aggregates.reconcile-interval}")
+    public void reconcile() {
+        Field<Integer> byRole = DSL.grouping(AUTHORITIES.AUTHORITY);
+        Field<Integer> byDepartment = DSL.grouping(USERINFO.DEPARTMENT);
+        Counters fresh = new Counters(Instant.now());
+
+        // One scan for all three groupings; GROUPING() is 1 for the column that was rolled up
+        dslContext.select(byRole, byDepartment, AUTHORITIES.AUTHORITY, USERINFO.DEPARTMENT, COUNT, ACTIVE)
+                .from(USERS)
+                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+                .groupBy(DSL.groupingSets(
+                        new Field<?>[]{AUTHORITIES.AUTHORITY},
+                        new Field<?>[]{USERINFO.DEPARTMENT},
+                        new Field<?>[]{}))
+                .forEach(row -> {
+                    Tally tally = row.get(byRole) == 0 ? fresh.role(row.get(AUTHORITIES.AUTHORITY))
+                            : row.get(byDepartment) == 0 ? fresh.department(row.get(USERINFO.DEPARTMENT))
+                            : fresh.total;
+                    tally.add(row.get(COUNT), row.get(ACTIVE));
+                });
+
+        counters = fresh;
+        // Page totals come from here, so cached pages must not outlive a reconcile
+        directoryVersion.bump();
+        log.debug("Reconciled user counts: {} users", fresh.total.users.sum());
+    }
+
+    // Rows counted by the /users page for this role, or for everything when blank; null before the first reconcile
+    public Long count(String role) {
+        Counters current = counters;
+        if (current == null) {
+            return null;
+        }
+        if (role == null || role.isEmpty()) {
+            return current.total.users.sum();
+        }
+        Tally tally = current.roles.get(role);
+        return tally == null ? 0L : tally.users.sum();
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserStatsDTO stats() {
+        Counters current = counters;
+        if (current == null) {
+            reconcile();
+            current = counters;
+        }
+        return new UserStatsDTO(current.total.snapshot(), snapshot(current.roles), snapshot(current.departments),
+                current.reconciledAt);
+    }
+
+    @ApplicationModuleListener
+    void on(UserCreated event) {
+        if (!republished(event.occurredAt())) {
+            created(event.authority(), event.department());
+        }
+    }
+
+    @ApplicationModuleListener
+    void on(UserDisabled event) {
+        if (!republished(event.occurredAt())) {
+            statusChanged(List.of(event.username()), false);
+        }
+    }
+
+    @ApplicationModuleListener
+    void on(UserEnabled event) {
+        if (!republished(event.occurredAt())) {
+            statusChanged(List.of(event.username()), true);
+        }
+    }
+
+    @ApplicationModuleListener
+    void on(UserUpdated event) {
+        UserUpdated.Change department = event.changes().get(USERINFO.DEPARTMENT.getName());
+        if (department != null && !republished(event.occurredAt())) {
+            departmentChanged(event.username(), department.from(), department.to());
+        }
+    }
+
+    // A newly created, enabled user with a single authority
+    public void created(String authority, String department) {
+        afterCommit(current -> {
+            current.total.add(1, 1);
+            current.role(authority).add(1, 1);
+            current.department(department).add(1, 1);
+        });
+    }
+
+    // Called inside a transaction that sees the new status, with the usernames that actually changed
+    public void statusChanged(Collection<String> usernames, boolean enabled) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        var changed = dslContext.select(AUTHORITIES.AUTHORITY, USERINFO.DEPARTMENT, COUNT)
+                .from(USERS)
+                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+                .where(USERS.USERNAME.eq(DSL.any(usernames.toArray(String[]::new))))
+                .groupBy(AUTHORITIES.AUTHORITY, USERINFO.DEPARTMENT)
+                .fetch();
+        afterCommit(current -> {
+            for (Record row : changed) {
+                long delta = enabled ? row.get(COUNT) : -row.get(COUNT);
+                current.total.add(0, delta);
+                current.role(row.get(AUTHORITIES.AUTHORITY)).add(0, delta);
+                current.department(row.get(USERINFO.DEPARTMENT)).add(0, delta);
+            }
+        });
+    }
+
+    // Called inside a transaction that sees the move
+    public void departmentChanged(String username, String from, String to) {
+        Record moved = dslContext.select(COUNT, ACTIVE)
+                .from(USERS)
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+                .where(USERS.USERNAME.eq(username))
+                .fetchOne();
+        afterCommit(current -> {
+            current.department(from).add(-moved.get(COUNT), -moved.get(ACTIVE));
+            current.department(to).add(moved.get(COUNT), moved.get(ACTIVE));
+        });
+    }
+
+    // Events from before this instance started are publications resubmitted on restart. Their change had
+    // committed with the publication, so the reconcile of this instance already counts it
+    private boolean republished(LocalDateTime occurredAt) {
+        return occurredAt.isBefore(startedAt);
+    }
+
+    // Deltas of rolled-back writes are dropped; before the first reconcile there is nothing to adjust
+    private void afterCommit(Consumer<Counters> delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(delta);
+                }
+            });
+        } else {
+            apply(delta);
+        }
+    }
+
+    private void apply(Consumer<Counters> delta) {
+        Counters current = counters;
+        if (current != null) {
+            delta.accept(current);
+        }
+        // Like a reconcile, a tag issued before the delta must not match the totals after it
+        directoryVersion.bump();
+    }
+
+    private static Map<String, UserCountsDTO> snapshot(Map<String, Tally> tallies) {
+        Map<String, UserCountsDTO> snapshot = new TreeMap<>();
+        tallies.forEach((key, tally) -> snapshot.put(key, tally.snapshot()));
+        return snapshot;
+    }
+
+    private static final class Counters {
+        final Tally total = new Tally();
+        final ConcurrentMap<String, Tally> roles = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Tally> departments = new ConcurrentHashMap<>();
+        final Instant reconciledAt;
+
+        Counters(Instant reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+
+        Tally role(String role) {
+            return roles.computeIfAbsent(role == null ? NONE : role, k -> new Tally());
+        }
+
+        Tally department(String department) {
+            return departments.computeIfAbsent(department == null ? NONE : department, k -> new Tally());
+        }
+    }
+
+    private static final class Tally {
+        final LongAdder users = new LongAdder();
+        final LongAdder active = new LongAdder();
+
+        void add(long users, long active) {
+            this.users.add(users);
+            this.active.add(active);
+        }
+
+        UserCountsDTO snapshot() {
+            return new UserCountsDTO(users.sum(), active.sum());
+        }
+    }
+}
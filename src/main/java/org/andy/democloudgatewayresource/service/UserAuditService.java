@@ -0,0 +1,115 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.andy.democloudgatewayresource.event.UserCreated;
+import org.andy.democloudgatewayresource.event.UserDisabled;
+import org.andy.democloudgatewayresource.event.UserEnabled;
+import org.andy.democloudgatewayresource.event.UserUpdated;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static nu.studer.sample.tables.UserAudit.USER_AUDIT;
+
+// Append-only trail of user lifecycle changes, written from the events once the change has committed, or by the
+// batch write paths in the same transaction as their chunk
+@Service
+public class UserAuditService {
+
+    private final DSLContext dslContext;
+    private final ObjectMapper objectMapper;
+
+    public UserAuditService(DSLContext dslContext, ObjectMapper objectMapper) {
+        this.dslContext = dslContext;
+        this.objectMapper = objectMapper;
+    }
+
+    @ApplicationModuleListener
+    void on(UserCreated event) {
+        record("CREATED", event.username(), event.actor(), createdDetails(event), event.occurredAt());
+    }
+
+    @ApplicationModuleListener
+    void on(UserDisabled event) {
+        record("DISABLED", event.username(), event.actor(), null, event.occurredAt());
+    }
+
+    @ApplicationModuleListener
+    void on(UserEnabled event) {
+        record("ENABLED", event.username(), event.actor(), null, event.occurredAt());
+    }
+
+    @ApplicationModuleListener
+    void on(UserUpdated event) {
+        record("UPDATED", event.username(), event.actor(), event.changes(), event.occurredAt());
+    }
+
+    // The batch write paths publish no per-user events; they record their chunk here, inside its transaction
+    public void created(Collection<UserCreated> created) {
+        insert(created.stream()
+                .map(event -> new Entry("CREATED", event.username(), event.actor(), createdDetails(event), event.occurredAt()))
+                .toList());
+    }
+
+    public void statusChanged(Collection<String> usernames, boolean enabled, String actor, LocalDateTime occurredAt) {
+        String type = enabled ? "ENABLED" : "DISABLED";
+        insert(usernames.stream()
+                .map(username -> new Entry(type, username, actor, null, occurredAt))
+                .toList());
+    }
+
+    private static Map<String, String> createdDetails(UserCreated event) {
+        Map<String, String> details = new LinkedHashMap<>();
+        details.put("authority", event.authority());
+        details.put("department", event.department());
+        return details;
+    }
+
+    private void record(String type, String username, String actor, Object details, LocalDateTime occurredAt) {
+        insert(List.of(new Entry(type, username, actor, details, occurredAt)));
+    }
+
+    // One multi-row INSERT. An event republished after a restart finds its row already there and is skipped
+    private void insert(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        var insert = dslContext.insertInto(USER_AUDIT, USER_AUDIT.EVENT_TYPE, USER_AUDIT.USERNAME, USER_AUDIT.ACTOR,
+                USER_AUDIT.DETAILS, USER_AUDIT.OCCURRED_AT, USER_AUDIT.EVENT_KEY);
+        for (Entry entry : entries) {
+            insert = insert.values(DSL.val(entry.type(), USER_AUDIT.EVENT_TYPE), DSL.val(entry.username(), USER_AUDIT.USERNAME),
+                    DSL.val(entry.actor(), USER_AUDIT.ACTOR),
+                    DSL.field("cast({0} as jsonb)", USER_AUDIT.DETAILS.getDataType(), DSL.val(toJson(entry.details()))),
+                    DSL.val(entry.occurredAt(), USER_AUDIT.OCCURRED_AT),
+                    DSL.val(entry.key(), USER_AUDIT.EVENT_KEY));
+        }
+        insert.onConflictDoNothing().execute();
+    }
+
+    private String toJson(Object details) {
+        if (details == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit details are not serializable", e);
+        }
+    }
+
+    private record Entry(String type, String username, String actor, Object details, LocalDateTime occurredAt) {
+
+        // A republished event carries the same type, user and time, so its key is already taken
+        String key() {
+            return type + ":" + username + ":" + occurredAt;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.andy.democloudgatewayresource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.UserBulkProperties;
+import org.andy.democloudgatewayresource.dto.UserBulkReportDTO;
+import org.andy.democloudgatewayresource.dto.UserBulkRequestDTO;
+import org.andy.democloudgatewayresource.exception.InvalidBulkRequestException;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+// Set-based counterparts of updateUserStatus and deleteUser, one UPDATE and one cache/aggregates/audit hook per chunk
+@Service
+@Slf4j
+public class UserBulkService {
+
+    private final DSLContext dslContext;
+    private final TransactionTemplate transactionTemplate;
+    private final UserinfoCache userinfoCache;
+    private final UserAggregatesService userAggregates;
+    private final UserAuditService userAudit;
+    private final UserBulkProperties properties;
+
+    public UserBulkService(DSLContext dslContext, TransactionTemplate transactionTemplate,
+                           UserinfoCache userinfoCache, UserAggregatesService userAggregates,
+                           UserAuditService userAudit, UserBulkProperties properties) {
+        this.dslContext = dslContext;
+        this.transactionTemplate = transactionTemplate;
+        this.userinfoCache = userinfoCache;
+        this.userAggregates = userAggregates;
+        this.userAudit = userAudit;
+        this.properties = properties;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserBulkReportDTO updateUsersStatus(UserBulkRequestDTO request, String status) {
+        return setEnabled(request, status.equals("active"));
+    }
+
+    // Soft delete, like deleteUser: accounts are disabled and their rows kept
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserBulkReportDTO deleteUsers(UserBulkRequestDTO request) {
+        return setEnabled(request, false);
+    }
+
+    private UserBulkReportDTO setEnabled(UserBulkRequestDTO request, boolean enabled) {
+        if (request.hasUsernames() == request.hasFilter()) {
+            throw new InvalidBulkRequestException("Give either usernames or a department/role filter");
+        }
+
+        String actor = currentActor();
+        long matched = 0;
+        long updated = 0;
+        int batches = 0;
+        if (request.hasUsernames()) {
+            List<String> usernames = request.usernames().stream().distinct().toList();
+            for (int from = 0; from < usernames.size(); from += properties.chunkSize()) {
+                List<String> chunk = usernames.subList(from, Math.min(from + properties.chunkSize(), usernames.size()));
+                matched += countExisting(chunk);
+                updated += updateChunk(chunk, enabled, actor);
+                batches++;
+            }
+        } else {
+            // Keyset walk over the matching usernames; each chunk is updated in its own transaction
+            Condition filter = filter(request);
+            List<String> chunk = nextMatches(filter, null);
+            while (!chunk.isEmpty()) {
+                matched += chunk.size();
+                updated += updateChunk(chunk, enabled, actor);
+                batches++;
+                chunk = chunk.size() < properties.chunkSize() ? List.of() : nextMatches(filter, chunk.getLast());
+            }
+        }
+
+        log.info("Bulk status change to enabled={}: {} matched, {} updated in {} batches", enabled, matched, updated, batches);
+        return new UserBulkReportDTO(matched, updated, batches);
+    }
+
+    // A single UPDATE ... WHERE username = ANY(?) binding the chunk as one array; rows already in
+    // the target state are skipped so they are neither rewritten nor counted, nor audited
+    private int updateChunk(List<String> usernames, boolean enabled, String actor) {
+        return transactionTemplate.execute(status -> {
+            List<String> changed = dslContext.update(USERS)
+                    .set(USERS.ENABLED, enabled)
+                    .where(USERS.USERNAME.eq(DSL.any(usernames.toArray(String[]::new))))
+                    .and(USERS.ENABLED.ne(enabled))
+                    .returning(USERS.USERNAME)
+                    .fetch(USERS.USERNAME);
+            userinfoCache.invalidate(changed);
+            userAggregates.statusChanged(changed, enabled);
+            userAudit.statusChanged(changed, enabled, actor, LocalDateTime.now());
+            return changed.size();
+        });
+    }
+
+    // Unknown usernames are not matched
+    private int countExisting(List<String> usernames) {
+        return dslContext.fetchCount(USERS, USERS.USERNAME.eq(DSL.any(usernames.toArray(String[]::new))));
+    }
+
+    // Distinct, since the authorities join gives a user with several roles one row per role
+    private List<String> nextMatches(Condition filter, String after) {
+        return dslContext.selectDistinct(USERS.USERNAME)
+                .from(USERS)
+                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+                .where(filter)
+                .and(after == null ? DSL.noCondition() : USERS.USERNAME.gt(after))
+                .orderBy(USERS.USERNAME)
+                .limit(properties.chunkSize())
+                .fetch(USERS.USERNAME);
+    }
+
+    private static Condition filter(UserBulkRequestDTO request) {
+        Condition filter = DSL.noCondition();
+        if (request.department() != null && !request.department().isBlank()) {
+            filter = filter.and(USERINFO.DEPARTMENT.eq(request.department()));
+        }
+        if (request.role() != null && !request.role().isBlank()) {
+            filter = filter.and(AUTHORITIES.AUTHORITY.eq(request.role()));
+        }
+        return filter;
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
@@ -0,0 +1,104 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.UserExportProperties;
+import org.andy.democloudgatewayresource.dto.UserinfoRows;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import static nu.studer.sample.tables.Users.USERS;
+
+@Service
+@Slf4j
+public class UserExportService {
+
+    private final DSLContext dslContext;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final UserExportProperties properties;
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+    private final CsvSchema csvSchema;
+
+    public UserExportService(DSLContext dslContext, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, UserExportProperties properties) {
+        this.dslContext = dslContext;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        CsvSchema.Builder schema = CsvSchema.builder().setUseHeader(true);
+        UserinfoSelect.COLUMNS.forEach(column -> schema.addColumn(column.getName()));
+        this.csvSchema = schema.build();
+    }
+
+    // Authorised on the request thread; the returned body runs later on an async MVC thread
+    @PreAuthorize("hasRole('ADMIN')")
+    public StreamingResponseBody exportUsers(ExportFormat format) {
+        return out -> {
+            try {
+                // The Postgres driver only uses a server-side cursor inside a transaction,
+                // otherwise it buffers the whole result regardless of the fetch size
+                readOnlyTransaction.executeWithoutResult(status -> writeUsers(out, format));
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; the transaction is already rolled back and the cursor closed
+                log.debug("User export aborted", e);
+                throw e.getCause();
+            }
+        };
+    }
+
+    private void writeUsers(OutputStream out, ExportFormat format) {
+        long rows = 0;
+        try (JsonGenerator generator = createGenerator(out, format);
+             Cursor<Record> cursor = UserinfoSelect.from(dslContext)
+                     .orderBy(USERS.USERNAME)
+                     .fetchSize(properties.fetchSize())
+                     .fetchLazy()) {
+            for (Record row : cursor) {
+                writeRow(generator, row, format);
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} users as {}", rows, format);
+    }
+
+    private JsonGenerator createGenerator(OutputStream out, ExportFormat format) throws IOException {
+        if (format == ExportFormat.CSV) {
+            CsvGenerator generator = csvMapper.getFactory().createGenerator(out);
+            generator.setSchema(csvSchema);
+            return generator;
+        }
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are terminated in writeRow instead of separated by the default space
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void writeRow(JsonGenerator generator, Record row, ExportFormat format) throws IOException {
+        UserinfoRows.writeRow(generator, row);
+        if (format == ExportFormat.NDJSON) {
+            generator.writeRaw('\n');
+        }
+    }
+}
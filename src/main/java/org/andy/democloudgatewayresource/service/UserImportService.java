@@ -0,0 +1,275 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.UserImportProperties;
+import org.andy.democloudgatewayresource.dto.UserImportReportDTO;
+import org.andy.democloudgatewayresource.dto.UserRequestDTO;
+import org.andy.democloudgatewayresource.event.UserCreated;
+import org.andy.democloudgatewayresource.record.RegistrationEmail;
+import org.andy.democloudgatewayresource.record.UserImportResult;
+import org.jooq.DSLContext;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+@Service
+@Slf4j
+public class UserImportService {
+
+    private final DSLContext dslContext;
+    private final PasswordHashingService passwordHashingService;
+    private final EmailService emailService;
+    private final UsernameAllocator usernameAllocator;
+    private final UserAggregatesService userAggregates;
+    private final UserinfoCache userinfoCache;
+    private final UserAuditService userAudit;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserImportProperties properties;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    public UserImportService(DSLContext dslContext, PasswordHashingService passwordHashingService,
+                             EmailService emailService, UsernameAllocator usernameAllocator,
+                             UserAggregatesService userAggregates, UserinfoCache userinfoCache,
+                             UserAuditService userAudit,
+                             TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                             UserImportProperties properties) {
+        this.dslContext = dslContext;
+        this.passwordHashingService = passwordHashingService;
+        this.emailService = emailService;
+        this.usernameAllocator = usernameAllocator;
+        this.userAggregates = userAggregates;
+        this.userinfoCache = userinfoCache;
+        this.userAudit = userAudit;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    // Reads the upload row by row, so only one chunk is ever held in memory
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserImportReportDTO importUsers(InputStream input, ImportFormat format) {
+        List<UserImportResult> results = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(properties.chunkSize());
+        long rowNo = 0;
+
+        try (MappingIterator<Map<String, String>> rows = openRows(input, format)) {
+            while (rows.hasNextValue()) {
+                rowNo++;
+                try {
+                    chunk.add(new ImportRow(rowNo, rows.nextValue()));
+                } catch (JsonMappingException | RuntimeJsonMappingException e) {
+                    // A well-formed value of the wrong shape, e.g. an NDJSON array; the iterator resumes after it
+                    results.add(UserImportResult.failed(rowNo, "Not a user row: " + e.getMessage()));
+                    continue;
+                }
+                if (chunk.size() == properties.chunkSize()) {
+                    results.addAll(importChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Malformed input ends the stream; rows read before it are still imported
+            log.warn("Stopped reading user import at row {}", rowNo + 1, e);
+            results.add(UserImportResult.failed(rowNo + 1, "Unreadable input: " + e.getMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk));
+        }
+
+        results.sort(Comparator.comparingLong(UserImportResult::row));
+        long imported = results.stream().filter(r -> r.status().equals(UserImportResult.IMPORTED)).count();
+        return UserImportReportDTO.builder()
+                .total(results.size())
+                .imported(imported)
+                .failed(results.size() - imported)
+                .results(results)
+                .build();
+    }
+
+    private MappingIterator<Map<String, String>> openRows(InputStream input, ImportFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> csvMapper.readerForMapOf(String.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(input);
+            case NDJSON -> objectMapper.readerForMapOf(String.class)
+                    .readValues(input);
+        };
+    }
+
+    private List<UserImportResult> importChunk(List<ImportRow> chunk) {
+        List<UserImportResult> results = new ArrayList<>(chunk.size());
+        List<NewUser> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            try {
+                UserRequestDTO user = toRequest(row.fields());
+                valid.add(new NewUser(row.row(), user, UserService.usernameBase(user.getFullName()), null, null, null));
+            } catch (RuntimeException e) {
+                results.add(UserImportResult.failed(row.row(), e.getMessage()));
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        List<NewUser> named;
+        try {
+            // BCrypt dominates the cost of an import, so spread it over the hashing pool before opening the
+            // transaction. A hashing pool full of other callers' work fails this chunk only; later ones still run.
+            List<String> passwords = valid.stream().map(u -> UserService.generateRandomPassword()).toList();
+            List<String> encodedPasswords = passwordHashingService.hashAll(passwords);
+            List<NewUser> hashed = new ArrayList<>(valid.size());
+            for (int i = 0; i < valid.size(); i++) {
+                hashed.add(valid.get(i).withPassword(passwords.get(i), encodedPasswords.get(i)));
+            }
+
+            // Suffixes are reserved in their own short transactions; a rolled-back chunk only leaves gaps
+            named = allocateUsernames(hashed);
+        } catch (RuntimeException e) {
+            log.warn("User import chunk of {} rows failed before insert", valid.size(), e);
+            valid.forEach(u -> results.add(UserImportResult.failed(u.row(), "Chunk rolled back: " + e.getMessage())));
+            return results;
+        }
+
+        try {
+            List<NewUser> created = transactionTemplate.execute(status -> insertChunk(named));
+            created.forEach(u -> results.add(UserImportResult.imported(u.row(), u.username())));
+        } catch (RuntimeException e) {
+            // One row breaking a constraint rolls back the multi-row inserts, so the chunk is retried row by
+            // row and only the offending rows fail; their hashes and usernames are reused
+            log.warn("User import chunk of {} rows rolled back, retrying row by row", named.size(), e);
+            for (NewUser u : named) {
+                try {
+                    transactionTemplate.execute(status -> insertChunk(List.of(u)));
+                    results.add(UserImportResult.imported(u.row(), u.username()));
+                } catch (RuntimeException rowFailure) {
+                    results.add(UserImportResult.failed(u.row(),
+                            NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    // One block reservation per distinct base in the chunk, then number locally
+    private List<NewUser> allocateUsernames(List<NewUser> users) {
+        Map<String, Integer> nextSuffix = new HashMap<>();
+        users.stream()
+                .collect(Collectors.groupingBy(NewUser::base, Collectors.counting()))
+                .forEach((base, count) -> nextSuffix.put(base, usernameAllocator.allocateBlock(base, count.intValue())));
+
+        List<NewUser> named = new ArrayList<>(users.size());
+        for (NewUser u : users) {
+            int suffix = nextSuffix.merge(u.base(), 1, Integer::sum) - 1;
+            named.add(u.withUsername(u.base() + suffix));
+        }
+        return named;
+    }
+
+    private List<NewUser> insertChunk(List<NewUser> named) {
+        LocalDateTime now = LocalDateTime.now();
+        var usersInsert = dslContext.insertInto(USERS, USERS.USERNAME, USERS.PASSWORD, USERS.ENABLED);
+        var authoritiesInsert = dslContext.insertInto(AUTHORITIES, AUTHORITIES.USERNAME, AUTHORITIES.AUTHORITY);
+        var userinfoInsert = dslContext.insertInto(USERINFO,
+                USERINFO.USERNAME, USERINFO.FULL_NAME, USERINFO.EMAIL, USERINFO.GENDER, USERINFO.BIRTHDATE,
+                USERINFO.PHONE_NUMBER, USERINFO.ADDRESS, USERINFO.POSITION, USERINFO.DEPARTMENT, USERINFO.NOTE,
+                USERINFO.CREATED_AT, USERINFO.UPDATED_AT);
+        List<RegistrationEmail> emails = new ArrayList<>(named.size());
+        for (NewUser u : named) {
+            UserRequestDTO user = u.user();
+            usersInsert = usersInsert.values(u.username(), u.encodedPassword(), true);
+            authoritiesInsert = authoritiesInsert.values(u.username(), "ROLE_" + user.getRole().toUpperCase());
+            userinfoInsert = userinfoInsert.values(u.username(), user.getFullName(), user.getEmail(),
+                    user.getGender(), user.getDob(), user.getPhoneNumber(), user.getAddress(), user.getRole(),
+                    user.getDepartment(), user.getNote(), now, now);
+            emails.add(new RegistrationEmail(user.getEmail(), u.username(), u.password()));
+        }
+
+        // One multi-row INSERT per table for the whole chunk
+        usersInsert.execute();
+        authoritiesInsert.execute();
+        userinfoInsert.execute();
+        emailService.queueRegistrationEmails(emails);
+        named.forEach(u -> userAggregates.created("ROLE_" + u.user().getRole().toUpperCase(), u.user().getDepartment()));
+        userinfoCache.directoryChanged();
+        String actor = currentActor();
+        userAudit.created(named.stream()
+                .map(u -> new UserCreated(u.username(), "ROLE_" + u.user().getRole().toUpperCase(),
+                        u.user().getDepartment(), actor, now))
+                .toList());
+        return named;
+    }
+
+    private static UserRequestDTO toRequest(Map<String, String> fields) {
+        UserRequestDTO user = UserRequestDTO.builder()
+                .fullName(blankToNull(fields.get("fullName")))
+                .email(blankToNull(fields.get("email")))
+                .dob(blankToNull(fields.get("dob")) == null ? null : LocalDate.parse(fields.get("dob").trim()))
+                .phoneNumber(blankToNull(fields.get("phoneNumber")))
+                .role(blankToNull(fields.get("role")))
+                .address(blankToNull(fields.get("address")))
+                .gender(blankToNull(fields.get("gender")))
+                .department(blankToNull(fields.get("department")))
+                .note(blankToNull(fields.get("note")))
+                .status(blankToNull(fields.get("status")))
+                .build();
+        if (user.getFullName() == null) {
+            throw new IllegalArgumentException("fullName is required");
+        }
+        if (user.getEmail() == null) {
+            throw new IllegalArgumentException("email is required");
+        }
+        if (user.getRole() == null) {
+            throw new IllegalArgumentException("role is required");
+        }
+        return user;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+
+    private record ImportRow(long row, Map<String, String> fields) {
+    }
+
+    private record NewUser(long row, UserRequestDTO user, String base, String password, String encodedPassword,
+                           String username) {
+
+        NewUser withPassword(String password, String encodedPassword) {
+            return new NewUser(row, user, base, password, encodedPassword, username);
+        }
+
+        NewUser withUsername(String username) {
+            return new NewUser(row, user, base, password, encodedPassword, username);
+        }
+    }
+}
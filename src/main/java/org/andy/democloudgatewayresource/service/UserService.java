@@ -1,95 +1,119 @@
 package org.andy.democloudgatewayresource.service;
 
+import io.micrometer.core.annotation.Timed;
 import nu.studer.sample.tables.Authorities;
 import nu.studer.sample.tables.Userinfo;
 import nu.studer.sample.tables.Users;
 import nu.studer.sample.tables.records.AuthoritiesRecord;
 import nu.studer.sample.tables.records.UserinfoRecord;
 import nu.studer.sample.tables.records.UsersRecord;
+import org.andy.democloudgatewayresource.config.ReplicaRoutingDataSource;
 import org.andy.democloudgatewayresource.dto.UserCredentialsDTO;
 import org.andy.democloudgatewayresource.dto.UserRequestDTO;
 import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
 import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.dto.UserinfoRows;
+import org.andy.democloudgatewayresource.event.UserCreated;
+import org.andy.democloudgatewayresource.event.UserDisabled;
+import org.andy.democloudgatewayresource.event.UserEnabled;
+import org.andy.democloudgatewayresource.event.UserUpdated;
+import org.andy.democloudgatewayresource.exception.ConcurrentUserUpdateException;
 import org.andy.democloudgatewayresource.exception.UserCreationException;
+import org.andy.democloudgatewayresource.exception.UserNotFoundException;
+import org.andy.democloudgatewayresource.record.PageCursor;
 import org.andy.democloudgatewayresource.record.User;
+import org.jooq.CommonTableExpression;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.Result;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
 
 import static nu.studer.sample.tables.Authorities.AUTHORITIES;
 import static nu.studer.sample.tables.Userinfo.USERINFO;
 import static nu.studer.sample.tables.Users.USERS;
 
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserService {
 
     private final DSLContext dslContext;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EmailService emailService;
+    private final UsernameAllocator usernameAllocator;
+    private final UserinfoCache userinfoCache;
+    private final UserAggregatesService userAggregates;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate primaryRead;
+    private final ApplicationEventPublisher events;
 
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    public UserService(DSLContext dslContext, PasswordEncoder passwordEncoder, EmailService emailService) {
+
+    public UserService(DSLContext dslContext, PasswordHashingService passwordHashingService, EmailService emailService,
+                       UsernameAllocator usernameAllocator, UserinfoCache userinfoCache,
+                       UserAggregatesService userAggregates, PlatformTransactionManager transactionManager,
+                       ApplicationEventPublisher events) {
         this.dslContext = dslContext;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
+        this.usernameAllocator = usernameAllocator;
+        this.userinfoCache = userinfoCache;
+        this.userAggregates = userAggregates;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // Cached rows and ETagged pages are read from the primary, see ReplicaRoutingDataSource.PRIMARY_READ
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setReadOnly(true);
+        this.primaryRead.setName(ReplicaRoutingDataSource.PRIMARY_READ);
+        this.events = events;
     }
 
+    @Transactional(readOnly = true)
     public List<User> getUsers() {
         return dslContext.select(USERS.USERNAME, USERS.PASSWORD, USERS.ENABLED)
                 .from(USERS)
                 .fetch(r -> new User(r.get(USERS.USERNAME), r.get(USERS.PASSWORD), r.get(USERS.ENABLED)));
     }
 
+    // Only the hash is computed up front, before the transaction opens, so no connection is held during bcrypt.
+    // The username counter, the three tables and the outbox row are then written by a single statement of
+    // chained data-modifying CTEs, committed together with the UserCreated publication; the listeners run after commit
     @PreAuthorize("hasRole('ADMIN')")
-    @Transactional
     public UserCredentialsDTO createUser(UserRequestDTO user) {
+        String generatedPassword = generateRandomPassword();
+        // Rejected with 503 when the hashing queue is full, before anything is written
+        String encodedPassword = passwordHashingService.hash(generatedPassword);
         try {
-            String username = generateUsername(user.getFullName());
-            String generatedPassword = generateRandomPassword();
-            String encodedPassword = "{bcrypt}" + passwordEncoder.encode(generatedPassword);
-
-            // Insert into users table using jOOQ DSL
-            dslContext.insertInto(USERS)
-                    .set(USERS.USERNAME, username)
-                    .set(USERS.PASSWORD, encodedPassword)
-                    .set(USERS.ENABLED, true)
-                    .execute();
-
-            // Insert into authorities table using jOOQ DSL
-            dslContext.insertInto(AUTHORITIES)
-                    .set(AUTHORITIES.USERNAME, username)
-                    .set(AUTHORITIES.AUTHORITY, "ROLE_" + user.getRole().toUpperCase())
-                    .execute();
-
-            // Insert into userinfo table using jOOQ DSL
-            dslContext.insertInto(USERINFO)
-                    .set(USERINFO.USERNAME, username)
-                    .set(USERINFO.FULL_NAME, user.getFullName())
-                    .set(USERINFO.EMAIL, user.getEmail())
-                    .set(USERINFO.GENDER, user.getGender())
-                    .set(USERINFO.BIRTHDATE, user.getDob())
-                    .set(USERINFO.PHONE_NUMBER, user.getPhoneNumber())
-                    .set(USERINFO.ADDRESS, user.getAddress())
-                    .set(USERINFO.POSITION, user.getRole())
-                    .set(USERINFO.DEPARTMENT, user.getDepartment())
-                    .set(USERINFO.NOTE, user.getNote())
-                    .set(USERINFO.CREATED_AT, LocalDateTime.now())
-                    .set(USERINFO.UPDATED_AT, LocalDateTime.now())
-                    .execute();
-
-            emailService.sendRegistrationEmail(user.getEmail(), username, generatedPassword);
+            String authority = "ROLE_" + user.getRole().toUpperCase();
+            String actor = currentActor();
+            String username = transaction.execute(status -> {
+                String created = insertUser(user, usernameBase(user.getFullName()), encodedPassword, generatedPassword);
+                userinfoCache.directoryChanged();
+                events.publishEvent(new UserCreated(created, authority, user.getDepartment(), actor,
+                        LocalDateTime.now()));
+                return created;
+            });
 
             return UserCredentialsDTO.builder()
                     .username(username)
@@ -103,7 +127,58 @@ public class UserService {
         }
     }
 
-    private String generateUsername(String fullName) {
+    private String insertUser(UserRequestDTO user, String base, String encodedPassword, String generatedPassword) {
+        LocalDateTime now = LocalDateTime.now();
+
+        CommonTableExpression<Record1<String>> allocated = DSL.name("allocated").fields("username")
+                .as(usernameAllocator.allocation(base));
+        Field<String> allocatedUsername = allocated.field("username", String.class);
+
+        // Insert into users table; the later CTEs read the username from its RETURNING clause
+        CommonTableExpression<Record1<String>> newUser = DSL.name("new_user").as(dslContext
+                .insertInto(USERS, USERS.USERNAME, USERS.PASSWORD, USERS.ENABLED)
+                .select(DSL.select(allocatedUsername, DSL.val(encodedPassword), DSL.val(true)).from(allocated))
+                .returningResult(USERS.USERNAME));
+        Field<String> username = newUser.field(USERS.USERNAME);
+
+        // Insert into authorities table
+        CommonTableExpression<Record1<String>> newAuthority = DSL.name("new_authority").as(dslContext
+                .insertInto(AUTHORITIES, AUTHORITIES.USERNAME, AUTHORITIES.AUTHORITY)
+                .select(DSL.select(username, DSL.val("ROLE_" + user.getRole().toUpperCase())).from(newUser))
+                .returningResult(AUTHORITIES.USERNAME));
+
+        // Insert into userinfo table
+        CommonTableExpression<Record1<String>> newUserinfo = DSL.name("new_userinfo").as(dslContext
+                .insertInto(USERINFO,
+                        USERINFO.USERNAME, USERINFO.FULL_NAME, USERINFO.EMAIL, USERINFO.GENDER, USERINFO.BIRTHDATE,
+                        USERINFO.PHONE_NUMBER, USERINFO.ADDRESS, USERINFO.POSITION, USERINFO.DEPARTMENT,
+                        USERINFO.NOTE, USERINFO.CREATED_AT, USERINFO.UPDATED_AT)
+                .select(DSL.select(username,
+                                DSL.val(user.getFullName(), USERINFO.FULL_NAME),
+                                DSL.val(user.getEmail(), USERINFO.EMAIL),
+                                DSL.val(user.getGender(), USERINFO.GENDER),
+                                DSL.val(user.getDob(), USERINFO.BIRTHDATE),
+                                DSL.val(user.getPhoneNumber(), USERINFO.PHONE_NUMBER),
+                                DSL.val(user.getAddress(), USERINFO.ADDRESS),
+                                DSL.val(user.getRole(), USERINFO.POSITION),
+                                DSL.val(user.getDepartment(), USERINFO.DEPARTMENT),
+                                DSL.val(user.getNote(), USERINFO.NOTE),
+                                DSL.val(now, USERINFO.CREATED_AT),
+                                DSL.val(now, USERINFO.UPDATED_AT))
+                        .from(newUser))
+                .returningResult(USERINFO.USERNAME));
+
+        // Delivered by EmailOutboxDispatcher after commit, never on the request thread
+        CommonTableExpression<Record1<Long>> newEmail = DSL.name("new_email").as(emailService.registrationEmailFrom(
+                newUser, DSL.val(user.getEmail(), USERINFO.EMAIL), username, generatedPassword));
+
+        return dslContext.with(allocated, newUser, newAuthority, newUserinfo, newEmail)
+                .select(username)
+                .from(newUser)
+                .fetchOne(username);
+    }
+
+    static String usernameBase(String fullName) {
         // Split the full name
         String[] nameParts = fullName.trim().split("\\s+");
         if (nameParts.length < 2) {
@@ -123,43 +198,33 @@ public class UserService {
 
         // Base pattern: LastNameInitials
         String basePattern = lastName + initials.toString();
-        basePattern = basePattern.toUpperCase();
-
-        // Find the next available number using jOOQ DSL
-        int count = dslContext
-                .selectCount()
-                .from(USERS)
-                .where(USERS.USERNAME.like(basePattern + "%"))
-                .fetchOne(0, int.class);
-
-        return basePattern + (count + 1);
+        return basePattern.toUpperCase();
     }
 
-    private String generateRandomPassword() {
+    static String generateRandomPassword() {
         String upperCaseLetters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
         String lowerCaseLetters = "abcdefghijklmnopqrstuvwxyz";
         String numbers = "0123456789";
         String specialCharacters = "!@#$%^&*()_+";
 
         StringBuilder password = new StringBuilder();
-        Random random = new Random();
 
         // Ensure at least one character from each category
-        password.append(upperCaseLetters.charAt(random.nextInt(upperCaseLetters.length())));
-        password.append(lowerCaseLetters.charAt(random.nextInt(lowerCaseLetters.length())));
-        password.append(numbers.charAt(random.nextInt(numbers.length())));
-        password.append(specialCharacters.charAt(random.nextInt(specialCharacters.length())));
+        password.append(upperCaseLetters.charAt(RANDOM.nextInt(upperCaseLetters.length())));
+        password.append(lowerCaseLetters.charAt(RANDOM.nextInt(lowerCaseLetters.length())));
+        password.append(numbers.charAt(RANDOM.nextInt(numbers.length())));
+        password.append(specialCharacters.charAt(RANDOM.nextInt(specialCharacters.length())));
 
         // Fill the rest with random characters
         String allCharacters = upperCaseLetters + lowerCaseLetters + numbers + specialCharacters;
         for (int i = 4; i < 12; i++) {
-            password.append(allCharacters.charAt(random.nextInt(allCharacters.length())));
+            password.append(allCharacters.charAt(RANDOM.nextInt(allCharacters.length())));
         }
 
         // Shuffle the password
         char[] passwordArray = password.toString().toCharArray();
         for (int i = passwordArray.length - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
+            int j = RANDOM.nextInt(i + 1);
             char temp = passwordArray[i];
             passwordArray[i] = passwordArray[j];
             passwordArray[j] = temp;
@@ -169,127 +234,255 @@ public class UserService {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public void updateUser(String username, UserinfoRequestDto user) {
-        dslContext.update(USERINFO)
-                .set(USERINFO.USERNAME, username)
-                .where(USERINFO.USERNAME.eq(username)).execute();
+        patchUser(username, user);
     }
 
+    // Null fields are left as they are. Only columns whose value differs from the stored row are written,
+    // and nothing is written when none do. A non-null updatedAt is the version the client last read.
     @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
+    public UserinfoResponseDTO patchUser(String username, UserinfoRequestDto patch) {
+        UserinfoRecord current = dslContext.selectFrom(USERINFO)
+                .where(USERINFO.USERNAME.eq(username))
+                .fetchOne();
+        if (current == null) {
+            throw new UserNotFoundException(username);
+        }
+        if (patch.getUpdatedAt() != null && !patch.getUpdatedAt().equals(current.getUpdatedAt())) {
+            throw new ConcurrentUserUpdateException(username);
+        }
+
+        Map<Field<?>, Object> changes = new LinkedHashMap<>();
+        diff(changes, USERINFO.FULL_NAME, current.getFullName(), patch.getFullName());
+        diff(changes, USERINFO.PICTURE, current.getPicture(), patch.getPicture());
+        diff(changes, USERINFO.EMAIL, current.getEmail(), patch.getEmail());
+        diff(changes, USERINFO.EMAIL_VERIFIED, current.getEmailVerified(), patch.getEmailVerified());
+        diff(changes, USERINFO.GENDER, current.getGender(), patch.getGender());
+        diff(changes, USERINFO.BIRTHDATE, current.getBirthdate(), patch.getBirthdate());
+        diff(changes, USERINFO.PHONE_NUMBER, current.getPhoneNumber(), patch.getPhoneNumber());
+        diff(changes, USERINFO.PHONE_NUMBER_VERIFIED, current.getPhoneNumberVerified(), patch.getPhoneNumberVerified());
+        diff(changes, USERINFO.ADDRESS, current.getAddress(), patch.getAddress());
+        diff(changes, USERINFO.POSITION, current.getPosition(), patch.getPosition());
+        diff(changes, USERINFO.DEPARTMENT, current.getDepartment(), patch.getDepartment());
+        diff(changes, USERINFO.NOTE, current.getNote(), patch.getNote());
+        if (changes.isEmpty()) {
+            return loadUserByUsername(username);
+        }
+
+        // Postgres keeps microseconds, truncate so the returned version compares equal to the stored one
+        changes.put(USERINFO.UPDATED_AT, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+
+        // Compare-and-set on the version read above instead of locking the row
+        int updated = dslContext.update(USERINFO)
+                .set(changes)
+                .where(USERINFO.USERNAME.eq(username))
+                .and(USERINFO.UPDATED_AT.isNotDistinctFrom(current.getUpdatedAt()))
+                .execute();
+        if (updated == 0) {
+            throw new ConcurrentUserUpdateException(username);
+        }
+        userinfoCache.evictWritten(username);
+
+        Map<String, UserUpdated.Change> changed = new LinkedHashMap<>();
+        changes.forEach((column, value) -> {
+            if (column != USERINFO.UPDATED_AT) {
+                changed.put(column.getName(), new UserUpdated.Change(
+                        Objects.toString(current.get(column), null), Objects.toString(value, null)));
+            }
+        });
+        events.publishEvent(new UserUpdated(username, changed, currentActor(), LocalDateTime.now()));
+        return loadUserByUsername(username);
+    }
+
+    private static <T> void diff(Map<Field<?>, Object> changes, Field<T> column, T stored, T requested) {
+        if (requested != null && !requested.equals(stored)) {
+            changes.put(column, requested);
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional
     public void deleteUser(String username) {
-        dslContext.update(USERS)
-                .set(USERS.ENABLED, false)
-                .where(USERS.USERNAME.eq(username)).execute();
+        setEnabled(username, false);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public Map<String, Object> getUsersPage(Integer pageNo, Integer pageSize, String filterBy, String filterRole) {
-        // Create base query joining all necessary tables
-        SelectConditionStep<?> query = dslContext
-                .select(
-                        USERS.USERNAME,
-                        USERS.ENABLED,
-                        AUTHORITIES.AUTHORITY,
-                        USERINFO.FULL_NAME,
-                        USERINFO.PICTURE,
-                        USERINFO.EMAIL,
-                        USERINFO.EMAIL_VERIFIED,
-                        USERINFO.GENDER,
-                        USERINFO.BIRTHDATE,
-                        USERINFO.PHONE_NUMBER,
-                        USERINFO.PHONE_NUMBER_VERIFIED,
-                        USERINFO.ADDRESS,
-                        USERINFO.POSITION,
-                        USERINFO.DEPARTMENT,
-                        USERINFO.NOTE,
-                        USERINFO.UPDATED_AT,
-                        USERINFO.CREATED_AT
-                )
-                .from(USERS)
-                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
-                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
-                .where(DSL.noCondition()); // Start with no conditions
-
-        // Add search filter if provided
-        if (!filterBy.isEmpty()) {
-            query = query.and(
-                    USERS.USERNAME.likeIgnoreCase("%" + filterBy + "%")
-                            .or(USERINFO.FULL_NAME.likeIgnoreCase("%" + filterBy + "%"))
-                            .or(USERINFO.EMAIL.likeIgnoreCase("%" + filterBy + "%"))
-                            .or(USERINFO.DEPARTMENT.likeIgnoreCase("%" + filterBy + "%"))
-            );
-        }
+        return primaryRead.execute(status -> loadUsersPage(pageNo, pageSize, filterBy, filterRole));
+    }
 
-        // Add role filter if provided
-        if (!filterRole.isEmpty()) {
-            query = query.and(AUTHORITIES.AUTHORITY.eq(filterRole));
-        }
+    private Map<String, Object> loadUsersPage(Integer pageNo, Integer pageSize, String filterBy, String filterRole) {
+        SelectConditionStep<Record> query = UserinfoSelect.filtered(dslContext, filterBy, filterRole);
 
-        // Get total count for pagination
-        int totalItems = dslContext
-                .fetchCount(query);
-        int totalPages = (int) Math.ceil((double) totalItems / pageSize);
+        // Get total count for pagination, from the in-memory aggregates unless searching
+        Long cachedCount = filterBy.isEmpty() ? userAggregates.count(filterRole) : null;
+        int totalItems = cachedCount != null ? cachedCount.intValue() : dslContext.fetchCount(query);
+        pageNo = validPageNo(pageNo, totalItems, pageSize);
 
-        // Validate pageNo
+        // Add pagination and fetch results, serialized from the records without building DTOs
+        Result<Record> users = query
+                .orderBy(UserinfoSelect.pageOrder(filterBy))
+                .limit(pageSize)
+                .offset(pageNo * pageSize)
+                .fetch();
+
+        return pageResponse(users, pageNo, pageSize, totalItems);
+    }
+
+    // Clamped to the last page, shared with ReactiveUserService
+    static int validPageNo(int pageNo, int totalItems, int pageSize) {
+        int totalPages = (int) Math.ceil((double) totalItems / pageSize);
         if (pageNo >= totalPages && totalPages > 0) {
             pageNo = totalPages - 1;
         }
-        if (pageNo < 0) {
-            pageNo = 0;
-        }
-
-        // Add pagination and fetch results
-        List<UserinfoResponseDTO> users = query
-                .orderBy(USERS.USERNAME.asc())
-                .limit(pageSize)
-                .offset(pageNo * pageSize)
-                .fetchInto(UserinfoResponseDTO.class);
+        return Math.max(pageNo, 0);
+    }
 
-        // Prepare response
+    static Map<String, Object> pageResponse(List<? extends Record> users, int pageNo, int pageSize, int totalItems) {
+        int totalPages = (int) Math.ceil((double) totalItems / pageSize);
         Map<String, Object> response = new HashMap<>();
-        response.put("content", users);
+        response.put("content", new UserinfoRows(users));
         response.put("totalPages", totalPages);
         response.put("totalElements", totalItems);
         response.put("currentPage", pageNo);
         response.put("pageSize", pageSize);
         response.put("hasNext", pageNo < totalPages - 1);
         response.put("hasPrevious", pageNo > 0);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<String, Object> getUsersSlice(String cursor, Integer pageSize, String filterBy, String filterRole,
+                                             CountMode countMode) {
+        return primaryRead.execute(status -> loadUsersSlice(cursor, pageSize, filterBy, filterRole, countMode));
+    }
+
+    private Map<String, Object> loadUsersSlice(String cursor, Integer pageSize, String filterBy, String filterRole,
+                                               CountMode countMode) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        SelectConditionStep<Record> query = UserinfoSelect.filtered(dslContext, filterBy, filterRole);
+
+        // Seek from the cursor instead of OFFSET, reading one extra row to learn whether more exist.
+        // Keyset order has to stay on USERNAME, so search results are not ranked in this mode.
+        List<Record> users;
+        if (pageCursor == null) {
+            users = query
+                    .orderBy(USERS.USERNAME.asc(), UserinfoSelect.AUTHORITY_KEY.asc())
+                    .limit(pageSize + 1)
+                    .fetch();
+        } else if (pageCursor.forward()) {
+            users = query
+                    .and(keysetAfter(pageCursor))
+                    .orderBy(USERS.USERNAME.asc(), UserinfoSelect.AUTHORITY_KEY.asc())
+                    .limit(pageSize + 1)
+                    .fetch();
+        } else {
+            users = query
+                    .and(keysetBefore(pageCursor))
+                    .orderBy(USERS.USERNAME.desc(), UserinfoSelect.AUTHORITY_KEY.desc())
+                    .limit(pageSize + 1)
+                    .fetch();
+        }
+
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+        if (pageCursor != null && !pageCursor.forward()) {
+            Collections.reverse(users);
+        }
+
+        boolean backward = pageCursor != null && !pageCursor.forward();
+        boolean hasNext = !users.isEmpty() && (backward || hasMore);
+        boolean hasPrevious = !users.isEmpty() && pageCursor != null && (pageCursor.forward() || hasMore);
+
+        // Prepare response
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", new UserinfoRows(users));
+        response.put("pageSize", pageSize);
+        response.put("hasNext", hasNext);
+        response.put("hasPrevious", hasPrevious);
+        response.put("nextCursor", hasNext
+                ? PageCursor.after(users.getLast().get(UserinfoSelect.USERNAME), authorityKey(users.getLast())).encode()
+                : null);
+        response.put("previousCursor", hasPrevious
+                ? PageCursor.before(users.getFirst().get(UserinfoSelect.USERNAME), authorityKey(users.getFirst())).encode()
+                : null);
+
+        // jOOQ selects are mutable builders and query now carries the seek and limit, so count a fresh one
+        switch (countMode) {
+            case EXACT -> response.put("totalElements", dslContext.fetchCount(UserinfoSelect.filtered(dslContext, filterBy, filterRole)));
+            case ESTIMATE -> {
+                // Planner estimate from table statistics, the join is never executed
+                response.put("totalElements",
+                        Math.round(dslContext.explain(UserinfoSelect.filtered(dslContext, filterBy, filterRole)).rows()));
+                response.put("totalIsEstimate", true);
+            }
+            case NONE -> {
+            }
+        }
 
         return response;
     }
 
+    // The leading username comparison keeps the seek on the users primary key; the authority only
+    // decides within the cursor's own user, whose rows may straddle the page edge
+    private static Condition keysetAfter(PageCursor cursor) {
+        if (cursor.authority() == null) {
+            return USERS.USERNAME.gt(cursor.username());
+        }
+        return USERS.USERNAME.ge(cursor.username())
+                .and(USERS.USERNAME.gt(cursor.username()).or(UserinfoSelect.AUTHORITY_KEY.gt(cursor.authority())));
+    }
+
+    private static Condition keysetBefore(PageCursor cursor) {
+        if (cursor.authority() == null) {
+            return USERS.USERNAME.lt(cursor.username());
+        }
+        return USERS.USERNAME.le(cursor.username())
+                .and(USERS.USERNAME.lt(cursor.username()).or(UserinfoSelect.AUTHORITY_KEY.lt(cursor.authority())));
+    }
+
+    private static String authorityKey(Record row) {
+        String authority = row.get(UserinfoSelect.AUTHORITY);
+        return authority == null ? "" : authority;
+    }
+
+    // Only a cache miss opens the read-only transaction, so hits never check out a connection
     @PreAuthorize("hasRole('ADMIN')")
     public UserinfoResponseDTO getUserByUsername(String username) {
-        return dslContext
-                .select(
-                        USERS.USERNAME,
-                        USERS.ENABLED,
-                        AUTHORITIES.AUTHORITY,
-                        USERINFO.FULL_NAME,
-                        USERINFO.PICTURE,
-                        USERINFO.EMAIL,
-                        USERINFO.EMAIL_VERIFIED,
-                        USERINFO.GENDER,
-                        USERINFO.BIRTHDATE,
-                        USERINFO.PHONE_NUMBER,
-                        USERINFO.PHONE_NUMBER_VERIFIED,
-                        USERINFO.ADDRESS,
-                        USERINFO.POSITION,
-                        USERINFO.DEPARTMENT,
-                        USERINFO.NOTE,
-                        USERINFO.UPDATED_AT,
-                        USERINFO.CREATED_AT
-                )
-                .from(USERS)
-                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
-                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME))
+        return userinfoCache.get(username, key -> primaryRead.execute(status -> loadUserByUsername(key)));
+    }
+
+    private UserinfoResponseDTO loadUserByUsername(String username) {
+        return UserinfoSelect.from(dslContext)
                 .where(USERS.USERNAME.eq(username))
-                .fetchOneInto(UserinfoResponseDTO.class);
+                .fetchOne(UserinfoSelect.MAPPER);
     }
 
+    @Transactional
     public void updateUserStatus(String username, String status) {
-        dslContext.update(USERS)
-                .set(USERS.ENABLED, status.equals("active"))
-                .where(USERS.USERNAME.eq(username)).execute();
+        setEnabled(username, status.equals("active"));
+    }
+
+    private void setEnabled(String username, boolean enabled) {
+        boolean changed = dslContext.update(USERS)
+                .set(USERS.ENABLED, enabled)
+                .where(USERS.USERNAME.eq(username))
+                .and(USERS.ENABLED.ne(enabled))
+                .execute() > 0;
+        userinfoCache.evictWritten(username);
+        if (changed) {
+            events.publishEvent(enabled
+                    ? new UserEnabled(username, currentActor(), LocalDateTime.now())
+                    : new UserDisabled(username, currentActor(), LocalDateTime.now()));
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
     }
 }
@@ -0,0 +1,146 @@
+package org.andy.democloudgatewayresource.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.andy.democloudgatewayresource.config.UserCacheProperties;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.event.UserDisabled;
+import org.andy.democloudgatewayresource.event.UserEnabled;
+import org.andy.democloudgatewayresource.event.UserUpdated;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+// Read-through cache for getUserByUsername, keyed by username
+@Component
+public class UserinfoCache {
+
+    static final String ALL = "*";
+    // Matches no entry, so evicting it only moves the directory version, here and on the other instances
+    static final String NONE = "";
+
+    private final DSLContext dslContext;
+    private final UserCacheProperties properties;
+    private final DirectoryVersion directoryVersion;
+    private final Cache<String, UserinfoResponseDTO> cache;
+
+    public UserinfoCache(DSLContext dslContext, UserCacheProperties properties, DirectoryVersion directoryVersion) {
+        this.dslContext = dslContext;
+        this.properties = properties;
+        this.directoryVersion = directoryVersion;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+    }
+
+    // Unknown usernames are not cached, the loader returning null is passed straight through
+    public UserinfoResponseDTO get(String username, Function<String, UserinfoResponseDTO> loader) {
+        return cache.get(username, loader);
+    }
+
+    // Hits only, for callers that load without blocking and leave populating the cache to get()
+    public UserinfoResponseDTO getIfPresent(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    public void invalidate(String username) {
+        evict(username);
+    }
+
+    public void invalidateAll() {
+        evict(ALL);
+    }
+
+    // New users are on no cached entry yet, but they change every directory page and its count
+    public void directoryChanged() {
+        evict(NONE);
+    }
+
+    // One eviction pass for a whole batch. Other instances are told to drop everything,
+    // since a batch of usernames does not fit in a NOTIFY payload.
+    public void invalidate(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(usernames);
+        directoryVersion.bump();
+        afterCompletion(() -> {
+            cache.invalidateAll(usernames);
+            directoryVersion.bump();
+        });
+        notifyOthers(ALL);
+    }
+
+    // The write paths evict locally through evictWritten, so their own reads see the change straight away.
+    // These drop the entry once more and tell the other instances.
+    @ApplicationModuleListener
+    void on(UserUpdated event) {
+        invalidate(event.username());
+    }
+
+    @ApplicationModuleListener
+    void on(UserDisabled event) {
+        invalidate(event.username());
+    }
+
+    @ApplicationModuleListener
+    void on(UserEnabled event) {
+        invalidate(event.username());
+    }
+
+    // For the write paths: evicts inside their transaction and again after commit, so neither a read racing the
+    // write nor a directory tag issued before the commit outlives it
+    void evictWritten(String key) {
+        evictLocal(key);
+        afterCompletion(() -> evictLocal(key));
+    }
+
+    // Used by UserinfoCacheListener for notifications from other instances (and our own echo)
+    void evictLocal(String key) {
+        directoryVersion.bump();
+        if (ALL.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    public Cache<String, UserinfoResponseDTO> getNativeCache() {
+        return cache;
+    }
+
+    private void evict(String key) {
+        evictLocal(key);
+        afterCompletion(() -> evictLocal(key));
+        notifyOthers(key);
+    }
+
+    // Evict again after commit so a read racing the write cannot re-cache the old row
+    private void afterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // NOTIFY is only delivered once the surrounding transaction commits
+    private void notifyOthers(String key) {
+        if (properties.invalidation().enabled()) {
+            dslContext.select(DSL.function("pg_notify", Object.class,
+                            DSL.val(properties.invalidation().channel()), DSL.val(key)))
+                    .fetch();
+        }
+    }
+}
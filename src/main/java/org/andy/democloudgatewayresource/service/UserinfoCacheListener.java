@@ -0,0 +1,84 @@
+package org.andy.democloudgatewayresource.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.andy.democloudgatewayresource.config.UserCacheProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Keeps UserinfoCache coherent across replicas by listening for pg_notify from their write paths
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.users.cache.invalidation.enabled", havingValue = "true")
+public class UserinfoCacheListener implements SmartLifecycle {
+
+    private final UserinfoCache userinfoCache;
+    private final DataSourceProperties dataSourceProperties;
+    private final UserCacheProperties.Invalidation properties;
+    private volatile Thread worker;
+
+    public UserinfoCacheListener(UserinfoCache userinfoCache, DataSourceProperties dataSourceProperties,
+                                 UserCacheProperties properties) {
+        this.userinfoCache = userinfoCache;
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties.invalidation();
+    }
+
+    @Override
+    public void start() {
+        worker = Thread.ofVirtual().name("userinfo-cache-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        Thread current = worker;
+        worker = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    private void listen() {
+        while (worker != null) {
+            // A dedicated connection outside the pool, it is held for as long as the app runs
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.channel());
+                }
+                // Anything written while we were not listening may be stale
+                userinfoCache.evictLocal(UserinfoCache.ALL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (worker != null) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            userinfoCache.evictLocal(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                log.warn("Lost userinfo cache notification channel, reconnecting", e);
+                try {
+                    Thread.sleep(properties.reconnectDelay());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.SelectConditionStep;
+import org.jooq.SelectJoinStep;
+import org.jooq.SortField;
+import org.jooq.impl.DSL;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static nu.studer.sample.tables.Authorities.AUTHORITIES;
+import static nu.studer.sample.tables.Userinfo.USERINFO;
+import static nu.studer.sample.tables.Users.USERS;
+
+// The user directory row shared by the /users pages, getUserByUsername and the export.
+// Columns are aliased to the UserinfoResponseDTO property names, so rows can be written as JSON directly.
+final class UserinfoSelect {
+
+    static final Field<String> USERNAME = USERS.USERNAME.as("username");
+    static final Field<Boolean> ENABLED = USERS.ENABLED.as("enabled");
+    static final Field<String> AUTHORITY = AUTHORITIES.AUTHORITY.as("authority");
+    static final Field<String> FULL_NAME = USERINFO.FULL_NAME.as("fullName");
+    static final Field<String> PICTURE = USERINFO.PICTURE.as("picture");
+    static final Field<String> EMAIL = USERINFO.EMAIL.as("email");
+    static final Field<Boolean> EMAIL_VERIFIED = USERINFO.EMAIL_VERIFIED.as("emailVerified");
+    static final Field<String> GENDER = USERINFO.GENDER.as("gender");
+    static final Field<LocalDate> BIRTHDATE = USERINFO.BIRTHDATE.as("birthdate");
+    static final Field<String> PHONE_NUMBER = USERINFO.PHONE_NUMBER.as("phoneNumber");
+    static final Field<Boolean> PHONE_NUMBER_VERIFIED = USERINFO.PHONE_NUMBER_VERIFIED.as("phoneNumberVerified");
+    static final Field<String> ADDRESS = USERINFO.ADDRESS.as("address");
+    static final Field<String> POSITION = USERINFO.POSITION.as("position");
+    static final Field<String> DEPARTMENT = USERINFO.DEPARTMENT.as("department");
+    static final Field<String> NOTE = USERINFO.NOTE.as("note");
+    static final Field<LocalDateTime> UPDATED_AT = USERINFO.UPDATED_AT.as("updatedAt");
+    static final Field<LocalDateTime> CREATED_AT = USERINFO.CREATED_AT.as("createdAt");
+
+    // Second keyset column of the cursor pages; users without a role still get one row, with no authority
+    static final Field<String> AUTHORITY_KEY = DSL.coalesce(AUTHORITIES.AUTHORITY, "");
+
+    static final List<Field<?>> COLUMNS = List.of(USERNAME, ENABLED, AUTHORITY, FULL_NAME, PICTURE, EMAIL,
+            EMAIL_VERIFIED, GENDER, BIRTHDATE, PHONE_NUMBER, PHONE_NUMBER_VERIFIED, ADDRESS, POSITION, DEPARTMENT,
+            NOTE, UPDATED_AT, CREATED_AT);
+
+    // Positional reads in select order, replacing the reflective fetchInto(UserinfoResponseDTO.class)
+    static final RecordMapper<Record, UserinfoResponseDTO> MAPPER = row -> new UserinfoResponseDTO(
+            (String) row.get(0),
+            (Boolean) row.get(1),
+            (String) row.get(2),
+            (String) row.get(3),
+            (String) row.get(4),
+            (String) row.get(5),
+            (Boolean) row.get(6),
+            (String) row.get(7),
+            (LocalDate) row.get(8),
+            (String) row.get(9),
+            (Boolean) row.get(10),
+            (String) row.get(11),
+            (String) row.get(12),
+            (String) row.get(13),
+            (String) row.get(14),
+            (LocalDateTime) row.get(15),
+            (LocalDateTime) row.get(16));
+
+    private UserinfoSelect() {
+    }
+
+    static SelectJoinStep<Record> from(DSLContext dslContext) {
+        return dslContext
+                .select(COLUMNS)
+                .from(USERS)
+                .leftJoin(USERINFO).on(USERS.USERNAME.eq(USERINFO.USERNAME))
+                .leftJoin(AUTHORITIES).on(USERS.USERNAME.eq(AUTHORITIES.USERNAME));
+    }
+
+    static SelectConditionStep<Record> filtered(DSLContext dslContext, String filterBy, String filterRole) {
+        SelectConditionStep<Record> query = from(dslContext)
+                .where(DSL.noCondition()); // Start with no conditions
+
+        // Add search filter if provided, served by the trigram index on USERINFO.SEARCH_TEXT
+        if (!filterBy.isEmpty()) {
+            query = query.and(USERINFO.SEARCH_TEXT.contains(searchTerm(filterBy)));
+        }
+
+        // Add role filter if provided
+        if (!filterRole.isEmpty()) {
+            query = query.and(AUTHORITIES.AUTHORITY.eq(filterRole));
+        }
+
+        return query;
+    }
+
+    // Best trigram match first when searching, otherwise alphabetical
+    static List<SortField<?>> pageOrder(String filterBy) {
+        if (filterBy.isEmpty()) {
+            return List.of(USERS.USERNAME.asc());
+        }
+        return List.of(
+                DSL.function("word_similarity", Float.class, searchTerm(filterBy), USERINFO.SEARCH_TEXT).desc(),
+                USERS.USERNAME.asc());
+    }
+
+    // Normalised the same way as the generated SEARCH_TEXT column: unaccented and lower-cased
+    private static Field<String> searchTerm(String filterBy) {
+        return DSL.lower(DSL.function("f_unaccent", String.class, DSL.val(filterBy.trim())));
+    }
+}
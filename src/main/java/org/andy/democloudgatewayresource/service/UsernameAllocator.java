@@ -0,0 +1,85 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.ResultQuery;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static nu.studer.sample.tables.UsernameSequence.USERNAME_SEQUENCE;
+import static nu.studer.sample.tables.Users.USERS;
+
+@Service
+public class UsernameAllocator {
+
+    private final DSLContext dslContext;
+    private final TransactionTemplate transactionTemplate;
+
+    public UsernameAllocator(DSLContext dslContext, PlatformTransactionManager transactionManager) {
+        this.dslContext = dslContext;
+        // Own short transaction, so the counter row is locked for one statement rather than a whole create
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String allocate(String base) {
+        return base + allocateBlock(base, 1);
+    }
+
+    // Reserves count consecutive suffixes for base and returns the first one
+    public int allocateBlock(String base, int count) {
+        Integer last = transactionTemplate.execute(status -> {
+            var incremented = dslContext.update(USERNAME_SEQUENCE)
+                    .set(USERNAME_SEQUENCE.LAST_VALUE, USERNAME_SEQUENCE.LAST_VALUE.plus(count))
+                    .where(USERNAME_SEQUENCE.PREFIX.eq(base))
+                    .returningResult(USERNAME_SEQUENCE.LAST_VALUE)
+                    .fetchOne();
+            if (incremented != null) {
+                return incremented.value1();
+            }
+
+            // First time this base is seen: continue after the usernames that already exist.
+            // ON CONFLICT covers a concurrent first allocation of the same base.
+            return dslContext.insertInto(USERNAME_SEQUENCE)
+                    .set(USERNAME_SEQUENCE.PREFIX, base)
+                    .set(USERNAME_SEQUENCE.LAST_VALUE, highestExistingSuffix(base).plus(count))
+                    .onConflict(USERNAME_SEQUENCE.PREFIX)
+                    .doUpdate()
+                    .set(USERNAME_SEQUENCE.LAST_VALUE, USERNAME_SEQUENCE.LAST_VALUE.plus(count))
+                    .returningResult(USERNAME_SEQUENCE.LAST_VALUE)
+                    .fetchOne()
+                    .value1();
+        });
+        return last - count + 1;
+    }
+
+    // allocate() as one statement, for embedding as a CTE in a larger write; yields the username.
+    // Runs in the caller's statement, so the counter row stays locked until that statement commits.
+    public ResultQuery<Record1<String>> allocation(String base) {
+        // Postgres only evaluates the existing-suffix scan when the base has no counter row yet
+        Field<Integer> seed = DSL.when(
+                        DSL.exists(DSL.selectOne().from(USERNAME_SEQUENCE).where(USERNAME_SEQUENCE.PREFIX.eq(base))),
+                        DSL.inline(0))
+                .otherwise(highestExistingSuffix(base));
+        return dslContext.insertInto(USERNAME_SEQUENCE, USERNAME_SEQUENCE.PREFIX, USERNAME_SEQUENCE.LAST_VALUE)
+                .values(DSL.val(base), seed.plus(1))
+                .onConflict(USERNAME_SEQUENCE.PREFIX)
+                .doUpdate()
+                .set(USERNAME_SEQUENCE.LAST_VALUE, USERNAME_SEQUENCE.LAST_VALUE.plus(1))
+                .returningResult(USERNAME_SEQUENCE.PREFIX.concat(USERNAME_SEQUENCE.LAST_VALUE));
+    }
+
+    // Only BASE followed by digits counts, so HANG1 is not mistaken for a HAN username
+    private Field<Integer> highestExistingSuffix(String base) {
+        Field<String> suffix = DSL.substring(USERS.USERNAME, base.length() + 1);
+        return DSL.field(DSL
+                .select(DSL.coalesce(DSL.max(suffix.cast(Integer.class)), 0))
+                .from(USERS)
+                .where(USERS.USERNAME.startsWith(base))
+                .and(suffix.likeRegex("^[0-9]+$")));
+    }
+}
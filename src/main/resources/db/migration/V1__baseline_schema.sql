@@ -0,0 +1,35 @@
+-- Schema that existed before migrations were introduced; no-op on existing databases
+create table if not exists users
+(
+    username varchar(50)  not null primary key,
+    password varchar(500) not null,
+    enabled  boolean      not null
+);
+
+create table if not exists authorities
+(
+    username  varchar(50) not null references users (username),
+    authority varchar(50) not null
+);
+
+create unique index if not exists ix_auth_username on authorities (username, authority);
+
+create table if not exists userinfo
+(
+    id                    bigserial primary key,
+    username              varchar(50) not null unique references users (username),
+    full_name             varchar(255),
+    picture               varchar(500),
+    email                 varchar(255),
+    email_verified        boolean,
+    gender                varchar(20),
+    birthdate             date,
+    phone_number          varchar(50),
+    phone_number_verified boolean,
+    address               varchar(500),
+    position              varchar(100),
+    department            varchar(100),
+    note                  text,
+    updated_at            timestamp,
+    created_at            timestamp
+);
@@ -0,0 +1,25 @@
+create extension if not exists unaccent;
+create extension if not exists pg_trgm;
+
+-- unaccent() is only STABLE, so it cannot back a generated column or index directly
+create or replace function f_unaccent(text) returns text
+    language sql
+    immutable
+    parallel safe
+    strict
+as
+$$
+select public.unaccent('public.unaccent'::regdictionary, $1)
+$$;
+
+-- Lower-cased, diacritic-free haystack for the admin search box ("Nguyễn Đức" -> "nguyen duc")
+alter table userinfo
+    add column if not exists search_text text generated always as (
+        lower(f_unaccent(
+                coalesce(username, '') || ' ' ||
+                coalesce(full_name, '') || ' ' ||
+                coalesce(email, '') || ' ' ||
+                coalesce(department, '')))
+        ) stored;
+
+create index if not exists ix_userinfo_search_text_trgm on userinfo using gin (search_text gin_trgm_ops);
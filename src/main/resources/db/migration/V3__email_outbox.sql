@@ -0,0 +1,16 @@
+-- Registration mail written in the same transaction as the user, drained by EmailOutboxDispatcher
+create table if not exists email_outbox
+(
+    id              bigserial primary key,
+    recipient       varchar(255) not null,
+    username        varchar(50)  not null,
+    password        varchar(100),
+    status          varchar(20)  not null default 'PENDING',
+    attempts        integer      not null default 0,
+    next_attempt_at timestamp    not null default now(),
+    last_error      text,
+    created_at      timestamp    not null default now(),
+    sent_at         timestamp
+);
+
+create index if not exists ix_email_outbox_pending on email_outbox (next_attempt_at) where status = 'PENDING';
@@ -0,0 +1,9 @@
+-- Last numeric suffix handed out per username base (e.g. NGUYENVA -> 3), see UsernameAllocator
+create table if not exists username_sequence
+(
+    prefix     varchar(50) primary key,
+    last_value integer not null
+);
+
+-- Lets the one-off seeding of a new base use an index range scan instead of scanning users
+create index if not exists ix_users_username_pattern on users (username varchar_pattern_ops);
@@ -0,0 +1,9 @@
+-- Indexes for the UserService query patterns that V1-V4 do not already cover. The join columns are indexed by
+-- the users primary key, the unique userinfo (username) and the unique authorities (username, authority).
+-- On a large live directory, create these by hand with CONCURRENTLY first; "if not exists" then skips them here.
+
+-- Role filter of the /users page, role counts and role-only pages in username order
+create index if not exists ix_authorities_authority_username on authorities (authority, username);
+
+-- Department filter of the bulk status endpoints, walked in username order
+create index if not exists ix_userinfo_department_username on userinfo (department, username);
@@ -0,0 +1,29 @@
+-- Spring Modulith JDBC event publication registry (schema-postgresql.sql of spring-modulith-events-jdbc 1.3).
+-- One row per event and listener, written in the publishing transaction and deleted once the listener completes
+create table if not exists event_publication
+(
+    id               uuid                     not null,
+    listener_id      text                     not null,
+    event_type       text                     not null,
+    serialized_event text                     not null,
+    publication_date timestamp with time zone not null,
+    completion_date  timestamp with time zone,
+    primary key (id)
+);
+
+create index if not exists event_publication_serialized_event_hash_idx on event_publication using hash (serialized_event);
+create index if not exists event_publication_by_completion_date_idx on event_publication (completion_date);
+
+-- Who did what to which user, appended by UserAuditService from the user lifecycle events
+create table if not exists user_audit
+(
+    id          bigserial primary key,
+    event_type  varchar(50) not null,
+    username    varchar(50) not null,
+    actor       varchar(50),
+    details     jsonb,
+    occurred_at timestamp   not null,
+    recorded_at timestamp   not null default now()
+);
+
+create index if not exists ix_user_audit_username on user_audit (username, occurred_at);
@@ -0,0 +1,6 @@
+-- Audit rows written from now on carry the identity of the event they record (type, user and time), so a
+-- publication handed to UserAuditService again after a restart does not add a second row. Older rows have
+-- no key and are left as they are, duplicates included
+alter table user_audit add column if not exists event_key text;
+
+create unique index if not exists ux_user_audit_event_key on user_audit (event_key);
@@ -3,7 +3,8 @@ package org.andy.democloudgatewayresource;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Default configuration, Resend sender included, which needs an outbox key
+@SpringBootTest(properties = "app.email.outbox.encryption-key=MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=")
 class DemoCloudGatewayResourceApplicationTests {
 
     @Test
@@ -0,0 +1,154 @@
+package org.andy.democloudgatewayresource.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+// Runs the decoder against a stub issuer serving a JWK set whose keys, availability and fetch count the test controls
+class JwtDecoderConfigTest {
+
+    private static final String ISSUER = "http://issuer.test";
+
+    private final JwtDecoderConfig config = new JwtDecoderConfig();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile JWKSet published;
+    private volatile boolean available = true;
+    private HttpServer issuer;
+    private RSAKey rsaKey;
+    private ECKey ecKey;
+
+    @BeforeEach
+    void startIssuer() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("rsa-1").generate();
+        ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        published = new JWKSet(List.of(rsaKey.toPublicJWK(), ecKey.toPublicJWK()));
+
+        issuer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        issuer.createContext("/oauth2/jwks", exchange -> {
+            fetches.incrementAndGet();
+            if (!available) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = published.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        issuer.start();
+    }
+
+    @AfterEach
+    void stopIssuer() {
+        issuer.stop(0);
+    }
+
+    @Test
+    void prefetchesKeysBeforeTheFirstToken() throws Exception {
+        JwtDecoderProperties properties = properties(Duration.ofMinutes(15), Duration.ofMinutes(1), null);
+        JwtDecoder decoder = config.jwtDecoder(config.jwkSource(properties), properties, ISSUER);
+        assertThat(fetches).hasValue(1);
+
+        assertThat(decoder.decode(token(rsaKey, JWSAlgorithm.RS256)).getSubject()).isEqualTo("stub");
+        assertThat(decoder.decode(token(ecKey, JWSAlgorithm.ES256)).getSubject()).isEqualTo("stub");
+        assertThat(fetches).as("served from the pre-fetched set").hasValue(1);
+    }
+
+    @Test
+    void rejectsAlgorithmsThatAreNotConfigured() throws Exception {
+        JwtDecoderProperties properties = new JwtDecoderProperties(jwkSetUri(), List.of("RS256"),
+                Duration.ofMinutes(15), Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofMillis(50), null);
+        JwtDecoder decoder = config.jwtDecoder(config.jwkSource(properties), properties, ISSUER);
+
+        assertThatThrownBy(() -> decoder.decode(token(ecKey, JWSAlgorithm.ES256))).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void refreshesAheadOfExpiryOffTheRequestPath() throws Exception {
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("rsa-2").generate();
+        // Refreshes run 2s apart, leaving room to decode between them
+        JwtDecoderProperties properties = properties(Duration.ofSeconds(6), Duration.ofSeconds(4), null);
+        JwtDecoder decoder = config.jwtDecoder(config.jwkSource(properties), properties, ISSUER);
+
+        // Rotate the issuer's key; the scheduled refresh picks it up without any token being decoded
+        published = new JWKSet(List.of(rotated.toPublicJWK(), ecKey.toPublicJWK()));
+        await().atMost(Duration.ofSeconds(6)).untilAtomic(fetches, greaterThanOrEqualTo(2));
+        int fetched = fetches.get();
+
+        assertThat(decoder.decode(token(rotated, JWSAlgorithm.RS256)).getSubject()).isEqualTo("stub");
+        assertThat(fetches).as("no fetch on the request path").hasValue(fetched);
+    }
+
+    @Test
+    void failsOverToTheStaticSetWhileTheIssuerIsDown() throws Exception {
+        available = false;
+        Resource fallback = new ByteArrayResource(
+                new JWKSet(rsaKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8));
+        JwtDecoderProperties properties = properties(Duration.ofSeconds(3), Duration.ofMillis(1500), fallback);
+
+        // Startup is not blocked by the unreachable issuer
+        JwtDecoder decoder = config.jwtDecoder(config.jwkSource(properties), properties, ISSUER);
+
+        assertThat(decoder.decode(token(rsaKey, JWSAlgorithm.RS256)).getSubject()).isEqualTo("stub");
+        assertThat(fetches).as("the issuer was tried first").hasValueGreaterThanOrEqualTo(1);
+        assertThatThrownBy(() -> decoder.decode(token(ecKey, JWSAlgorithm.ES256)))
+                .as("keys only the issuer knows").isInstanceOf(JwtException.class);
+    }
+
+    private JwtDecoderProperties properties(Duration cacheTtl, Duration refreshAhead, Resource fallback) {
+        return new JwtDecoderProperties(jwkSetUri(), List.of("RS256", "ES256"), cacheTtl, Duration.ofSeconds(1),
+                refreshAhead, Duration.ofMillis(50), fallback);
+    }
+
+    private String jwkSetUri() {
+        return "http://127.0.0.1:" + issuer.getAddress().getPort() + "/oauth2/jwks";
+    }
+
+    private static String token(JWK key, JWSAlgorithm algorithm) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("stub")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(key instanceof RSAKey rsa ? new RSASSASigner(rsa) : new ECDSASigner((ECKey) key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,144 @@
+package org.andy.democloudgatewayresource.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Routes against two Postgres servers, the database from application.yml as primary and a second one on
+// REPLICA_URL (default localhost:5432; a plain server will do, only the port tells them apart).
+// Skipped when the second server cannot be reached.
+@SpringBootTest(properties = {
+        "app.email.sender=log",
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "app.datasource.replicas.health-check-interval=PT0.2S",
+        "app.datasource.replicas.read-your-writes=PT2S"
+})
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "${REPLICA_URL:jdbc:postgresql://localhost:5432/mydatabase}";
+    private static final int PRIMARY_PORT = 5431;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeAll
+    static void replicaReachable() {
+        String url = System.getenv().getOrDefault("REPLICA_URL", "jdbc:postgresql://localhost:5432/mydatabase");
+        try (Connection ignored = DriverManager.getConnection(url, "myuser", "secret")) {
+            // reachable
+        } catch (SQLException e) {
+            assumeTrue(false, "No second Postgres at " + url);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        await().atMost(Duration.ofSeconds(10)).until(() -> routing.getHealthyReplicas() == 1);
+    }
+
+    @AfterEach
+    void clearCaller() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        actAs("replica-reader");
+        assertThat(readPort()).isNotEqualTo(PRIMARY_PORT);
+        assertThat(readWrite.execute(status -> port()).intValue()).isEqualTo(PRIMARY_PORT);
+    }
+
+    @Test
+    void windowStartsAtCommitNotAtCheckout() {
+        actAs("slow-writer");
+        // The write transaction outlives the 2s window, counted from its first statement
+        readWrite.executeWithoutResult(status -> {
+            port();
+            sleep(Duration.ofMillis(2500));
+        });
+        assertThat(readPort()).isEqualTo(PRIMARY_PORT);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> readPort() != PRIMARY_PORT);
+    }
+
+    @Test
+    void rolledBackTransactionsDoNotPinTheCaller() {
+        actAs("rolled-back-writer");
+        readWrite.executeWithoutResult(status -> {
+            port();
+            status.setRollbackOnly();
+        });
+        assertThat(readPort()).isNotEqualTo(PRIMARY_PORT);
+    }
+
+    @Test
+    void primaryReadsStayOnThePrimaryWithoutPinningTheCaller() {
+        actAs("cache-loader");
+        TransactionTemplate primaryRead = new TransactionTemplate(transactionManager);
+        primaryRead.setReadOnly(true);
+        primaryRead.setName(ReplicaRoutingDataSource.PRIMARY_READ);
+        assertThat(primaryRead.execute(status -> port()).intValue()).isEqualTo(PRIMARY_PORT);
+        assertThat(readPort()).isNotEqualTo(PRIMARY_PORT);
+    }
+
+    @Test
+    void windowIsPerCaller() {
+        actAs("writer");
+        readWrite.executeWithoutResult(status -> port());
+        assertThat(readPort()).isEqualTo(PRIMARY_PORT);
+
+        actAs("someone-else");
+        assertThat(readPort()).isNotEqualTo(PRIMARY_PORT);
+    }
+
+    private int readPort() {
+        return readOnly.execute(status -> port());
+    }
+
+    private int port() {
+        return jdbc.queryForObject("select inet_server_port()", Integer.class);
+    }
+
+    private static void actAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, "n/a", "ROLE_USER"));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.andy.democloudgatewayresource.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
+import org.andy.democloudgatewayresource.service.DirectoryVersion;
+import org.andy.democloudgatewayresource.service.UserAggregatesService;
+import org.andy.democloudgatewayresource.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A page revalidated after a user is created or imported must not come back 304. Needs the database from
+// application.yml; created users are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+@AutoConfigureMockMvc
+class AppControllerConditionalGetTest {
+
+    private static final String FILTER = "zzetag";
+    private static final RequestPostProcessor ADMIN = jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserAggregatesService userAggregatesService;
+
+    @Autowired
+    private DirectoryVersion directoryVersion;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        for (String username : created) {
+            for (String table : List.of("authorities", "userinfo", "users", "user_audit")) {
+                jdbc.update("delete from " + table + " where username = ?", username);
+            }
+        }
+        jdbc.update("delete from email_outbox where recipient like ?", FILTER + "%");
+    }
+
+    @Test
+    void createdUserInvalidatesThePageEtag() throws Exception {
+        String etag = pageEtag();
+        mvc.perform(page().header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+
+        String body = mvc.perform(post("/users/add").with(ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"fullName": "Zzetag Created", "email": "zzetag-created@example.com", "role": "user"}"""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        created.add(objectMapper.readTree(body).get("username").asText());
+
+        assertThat(revalidate(etag).get("totalElements").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void importedChunkInvalidatesThePageEtag() throws Exception {
+        String etag = pageEtag();
+
+        String body = mvc.perform(post("/users/import").with(ADMIN)
+                        .contentType("text/csv")
+                        .content("fullName,email,role\nZzetag Imported,zzetag-imported@example.com,user\n"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        objectMapper.readTree(body).get("results").forEach(result -> created.add(result.get("username").asText()));
+        assertThat(created).hasSize(1);
+
+        assertThat(revalidate(etag).get("totalElements").asInt()).isEqualTo(1);
+    }
+
+    // A page read while a write is still uncommitted is tagged with the version of that moment, so the version
+    // must move again once the write is visible
+    @Test
+    void tagIssuedBeforeTheCommitDoesNotMatchAfterIt() {
+        String username = "ZZETAGPATCH";
+        created.add(username);
+        jdbc.update("insert into users (username, password, enabled) values (?, '{noop}etag', true)", username);
+        jdbc.update("insert into userinfo (username, full_name, created_at, updated_at) values (?, 'Zzetag Patch', now(), now())",
+                username);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("etag-test", "n/a", "ROLE_ADMIN"));
+
+        String patched = transactionTemplate.execute(status -> {
+            userService.patchUser(username, UserinfoRequestDto.builder().department("Zzetag").build());
+            return directoryVersion.etag();
+        });
+        assertThat(directoryVersion.etag()).isNotEqualTo(patched);
+
+        String disabled = transactionTemplate.execute(status -> {
+            userService.updateUserStatus(username, "inactive");
+            return directoryVersion.etag();
+        });
+        assertThat(directoryVersion.etag()).isNotEqualTo(disabled);
+
+        String counted = transactionTemplate.execute(status -> {
+            userAggregatesService.created("user", "Zzetag");
+            return directoryVersion.etag();
+        });
+        assertThat(directoryVersion.etag()).isNotEqualTo(counted);
+        // Drops the made-up delta
+        userAggregatesService.reconcile();
+    }
+
+    private String pageEtag() throws Exception {
+        return mvc.perform(page()).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    // Sends the old tag again and expects a fresh page under a new one
+    private JsonNode revalidate(String etag) throws Exception {
+        String body = mvc.perform(page().header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private MockHttpServletRequestBuilder page() {
+        return get("/users").param("filterBy", FILTER).with(ADMIN);
+    }
+}
@@ -0,0 +1,121 @@
+package org.andy.democloudgatewayresource.controller;
+
+import org.andy.democloudgatewayresource.config.AvatarProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Uploads that must be refused without adding anything to the avatar directory. Needs the database from
+// application.yml; the seeded user is removed.
+@SpringBootTest(properties = "app.email.sender=log")
+@AutoConfigureMockMvc
+class AvatarControllerTest {
+
+    private static final String USERNAME = "ZZAVATAR";
+    private static final RequestPostProcessor ADMIN = jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private AvatarProperties properties;
+
+    private List<Path> storedBefore;
+
+    @BeforeEach
+    void seed() throws IOException {
+        storedBefore = storedFiles();
+        jdbc.update("insert into users (username, password, enabled) values (?, '{noop}avatar', true)", USERNAME);
+        jdbc.update("insert into userinfo (username, full_name, created_at, updated_at) values (?, 'Avatar', now(), now())",
+                USERNAME);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username = ?", USERNAME);
+        }
+    }
+
+    @Test
+    void unknownUserIsRefusedBeforeTheUploadIsStored() throws Exception {
+        mvc.perform(put("/users/ZZNOBODY/avatar").contentType(MediaType.IMAGE_PNG).content(png()).with(ADMIN))
+                .andExpect(status().isNotFound());
+        assertThat(storedFiles()).isEqualTo(storedBefore);
+    }
+
+    @Test
+    void oversizedMultipartIsRefusedFromItsLength() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, png());
+        mvc.perform(multipart(HttpMethod.PUT, "/users/" + USERNAME + "/avatar").file(file).with(ADMIN)
+                        .with(request -> {
+                            request.setContent(new byte[11 * 1024 * 1024]);
+                            return request;
+                        }))
+                .andExpect(status().isBadRequest());
+        assertThat(storedFiles()).isEqualTo(storedBefore);
+    }
+
+    @Test
+    void multipartWithoutALengthIsRefused() throws Exception {
+        // MockMvc reports no Content-Length unless a body is set, like a chunked request
+        MockMultipartFile file = new MockMultipartFile("file", "a.png", MediaType.IMAGE_PNG_VALUE, png());
+        mvc.perform(multipart(HttpMethod.PUT, "/users/" + USERNAME + "/avatar").file(file).with(ADMIN))
+                .andExpect(status().isLengthRequired());
+        assertThat(storedFiles()).isEqualTo(storedBefore);
+    }
+
+    @Test
+    void malformedImageIsABadRequest() throws Exception {
+        // A BMP whose header makes the JDK reader allocate a negative-sized array
+        byte[] bmp = encode("bmp");
+        bmp[13] = (byte) 0xff;
+        mvc.perform(put("/users/" + USERNAME + "/avatar").contentType(MediaType.IMAGE_PNG).content(bmp).with(ADMIN))
+                .andExpect(status().isBadRequest());
+        assertThat(storedFiles()).isEqualTo(storedBefore);
+    }
+
+    private static byte[] png() throws IOException {
+        return encode("png");
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(properties.directory())) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
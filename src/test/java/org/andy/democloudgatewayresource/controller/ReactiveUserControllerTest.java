@@ -0,0 +1,113 @@
+package org.andy.democloudgatewayresource.controller;
+
+import org.andy.democloudgatewayresource.config.UserExportProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The R2DBC reads must answer exactly like their blocking counterparts. Needs the database from application.yml;
+// seeded rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+@AutoConfigureMockMvc
+class ReactiveUserControllerTest {
+
+    private static final String PREFIX = "ZZREACT";
+    private static final RequestPostProcessor ADMIN = jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserExportProperties exportProperties;
+
+    @BeforeEach
+    void seed() {
+        for (int i = 1; i <= 3; i++) {
+            String username = PREFIX + i;
+            jdbc.update("insert into users (username, password, enabled) values (?, '{noop}react', true)", username);
+            jdbc.update("insert into userinfo (username, full_name, department, created_at, updated_at) values (?, ?, 'QA', now(), now())",
+                    username, "Reactive " + username);
+            jdbc.update("insert into authorities (username, authority) values (?, 'ROLE_USER')", username);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("authorities", "userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username like ?", PREFIX + "%");
+        }
+    }
+
+    @Test
+    void pageMatchesTheBlockingPage() throws Exception {
+        String blocking = mvc.perform(get("/users").param("filterBy", "zzreact").param("pageSize", "2").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String reactive = async(get("/reactive/users").param("filterBy", "zzreact").param("pageSize", "2"));
+
+        assertThat(reactive).isEqualTo(blocking).contains(PREFIX + "1", PREFIX + "2").doesNotContain(PREFIX + "3");
+    }
+
+    @Test
+    void userMatchesTheBlockingUser() throws Exception {
+        String blocking = mvc.perform(get("/users/{username}", PREFIX + "2").with(ADMIN))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(async(get("/reactive/users/{username}", PREFIX + "2"))).isEqualTo(blocking);
+    }
+
+    @Test
+    void streamEmitsOneLinePerUser() throws Exception {
+        String body = async(get("/reactive/users/stream").param("filterBy", "zzreact"));
+
+        assertThat(body.lines().toList()).hasSize(3)
+                .allSatisfy(line -> assertThat(line).startsWith("{").contains(PREFIX));
+    }
+
+    @Test
+    void streamRunsUnderTheExportTimeout() throws Exception {
+        MvcResult started = mvc.perform(get("/reactive/users/stream").param("filterBy", "zzreact").with(ADMIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(exportProperties.timeout().toMillis());
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    @Test
+    void readsNeedAToken() throws Exception {
+        mvc.perform(get("/reactive/users")).andExpect(status().isUnauthorized());
+    }
+
+    private String async(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request.with(ADMIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
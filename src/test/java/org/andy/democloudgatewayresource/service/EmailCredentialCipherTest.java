@@ -0,0 +1,41 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.config.EmailOutboxProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailCredentialCipherTest {
+
+    private static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    @Test
+    void realSenderRefusesToStartWithoutAKey() {
+        assertThatThrownBy(() -> new EmailCredentialCipher(properties(""), "resend"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("EMAIL_OUTBOX_KEY");
+    }
+
+    @Test
+    void logSenderFallsBackToAProcessKey() {
+        EmailCredentialCipher cipher = new EmailCredentialCipher(properties(null), "log");
+
+        assertThat(cipher.decrypt(cipher.encrypt("s3cret"))).isEqualTo("s3cret");
+    }
+
+    @Test
+    void configuredKeyIsSharedAcrossInstances() {
+        String sealed = new EmailCredentialCipher(properties(KEY), "resend").encrypt("s3cret");
+
+        assertThat(sealed).doesNotContain("s3cret");
+        assertThat(new EmailCredentialCipher(properties(KEY), "resend").decrypt(sealed)).isEqualTo("s3cret");
+    }
+
+    private static EmailOutboxProperties properties(String encryptionKey) {
+        return new EmailOutboxProperties(50, 8, 8, Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMinutes(2),
+                encryptionKey);
+    }
+}
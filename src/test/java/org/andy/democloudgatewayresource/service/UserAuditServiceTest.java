@@ -0,0 +1,48 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A replayed event adds no second row, while rows from before the event key are left alone. Needs the database
+// from application.yml; the audit rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+class UserAuditServiceTest {
+
+    private static final String USERNAME = "ZZAUDIT";
+
+    @Autowired
+    private UserAuditService userAuditService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("delete from user_audit where username = ?", USERNAME);
+    }
+
+    @Test
+    void replayedEventIsRecordedOnceAndOlderRowsAreKept() {
+        LocalDateTime occurredAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // Two identical rows as written before the key existed
+        for (int i = 0; i < 2; i++) {
+            jdbc.update("insert into user_audit (event_type, username, actor, occurred_at) values ('ENABLED', ?, 'audit-test', ?)",
+                    USERNAME, occurredAt.minusDays(1));
+        }
+
+        userAuditService.statusChanged(List.of(USERNAME), false, "audit-test", occurredAt);
+        userAuditService.statusChanged(List.of(USERNAME), false, "audit-test", occurredAt);
+
+        assertThat(jdbc.queryForList("select event_type from user_audit where username = ? order by id", String.class,
+                USERNAME)).containsExactly("ENABLED", "ENABLED", "DISABLED");
+    }
+}
@@ -0,0 +1,87 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserBulkReportDTO;
+import org.andy.democloudgatewayresource.dto.UserBulkRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checks the matched and updated counts of the bulk status endpoints, including a user whose two roles
+// give two rows in the filter's authorities join. Needs the database from application.yml; seeded rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+class UserBulkServiceTest {
+
+    private static final String PREFIX = "ZZBULK";
+    private static final String DEPARTMENT = "ZZBULK-QA";
+
+    @Autowired
+    private UserBulkService userBulkService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("bulk-test", "n/a", "ROLE_ADMIN"));
+        // ZZBULK3 starts disabled
+        for (String username : List.of(PREFIX + "1", PREFIX + "2", PREFIX + "3")) {
+            jdbc.update("insert into users (username, password, enabled) values (?, '{noop}bulk', ?)",
+                    username, !username.endsWith("3"));
+            jdbc.update("insert into userinfo (username, full_name, department, created_at, updated_at) values (?, ?, ?, now(), now())",
+                    username, "Bulk " + username, DEPARTMENT);
+        }
+        jdbc.update("insert into authorities (username, authority) values (?, 'ROLE_USER'), (?, 'ROLE_ADMIN'), (?, 'ROLE_USER'), (?, 'ROLE_USER')",
+                PREFIX + "1", PREFIX + "2", PREFIX + "2", PREFIX + "3");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        for (String table : List.of("authorities", "userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username like ?", PREFIX + "%");
+        }
+    }
+
+    @Test
+    void filterCountsEachUserOnceAndOnlyRealChanges() {
+        UserBulkRequestDTO byDepartment = new UserBulkRequestDTO(null, DEPARTMENT, null);
+
+        UserBulkReportDTO first = userBulkService.deleteUsers(byDepartment);
+        assertThat(first.matched()).isEqualTo(3);
+        assertThat(first.updated()).isEqualTo(2);
+        assertThat(enabled()).containsOnly(false);
+
+        // Everything is already disabled, so nothing is rewritten
+        UserBulkReportDTO again = userBulkService.deleteUsers(byDepartment);
+        assertThat(again.matched()).isEqualTo(3);
+        assertThat(again.updated()).isZero();
+    }
+
+    @Test
+    void usernamesAreDedupedAndUnknownOrAlreadyActiveUsersSkipped() {
+        UserBulkRequestDTO request = new UserBulkRequestDTO(
+                List.of(PREFIX + "1", PREFIX + "3", PREFIX + "3", PREFIX + "MISSING"), null, null);
+
+        UserBulkReportDTO report = userBulkService.updateUsersStatus(request, "active");
+
+        // ZZBULKMISSING does not exist
+        assertThat(report.matched()).isEqualTo(2);
+        assertThat(report.updated()).isEqualTo(1);
+        assertThat(enabled()).containsOnly(true);
+    }
+
+    private List<Boolean> enabled() {
+        return jdbc.queryForList("select enabled from users where username like ? order by username", Boolean.class,
+                PREFIX + "%");
+    }
+}
@@ -0,0 +1,74 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserImportReportDTO;
+import org.andy.democloudgatewayresource.record.UserImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// A row that parses but breaks a column constraint must fail alone, not take its chunk with it.
+// Needs the database from application.yml; imported users are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+class UserImportServiceTest {
+
+    // Usernames are the last name plus initials, so every imported user starts with this
+    private static final String PREFIX = "ZZIMPORT";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void actAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("import-test", "n/a", "ROLE_ADMIN"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        for (String table : List.of("authorities", "userinfo", "user_audit", "users")) {
+            jdbc.update("delete from " + table + " where username like ?", PREFIX + "%");
+        }
+        jdbc.update("delete from email_outbox where recipient like ?", "zzimport%");
+        jdbc.update("delete from username_sequence where prefix like ?", PREFIX + "%");
+    }
+
+    @Test
+    void constraintViolationFailsOnlyItsRow() {
+        // gender is varchar(20)
+        String csv = """
+                fullName,email,role,gender
+                Alpha Zzimport,zzimport-alpha@example.com,user,female
+                Beta Zzimport,zzimport-beta@example.com,user,%s
+                Gamma Zzimport,zzimport-gamma@example.com,user,male
+                """.formatted("x".repeat(21));
+
+        UserImportReportDTO report = userImportService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.results()).extracting(UserImportResult::row, UserImportResult::status)
+                .containsExactly(
+                        tuple(1L, UserImportResult.IMPORTED),
+                        tuple(2L, UserImportResult.FAILED),
+                        tuple(3L, UserImportResult.IMPORTED));
+        assertThat(report.results().get(1).error()).contains("too long");
+        assertThat(jdbc.queryForObject("select count(*) from users where username like ?", Integer.class, PREFIX + "%"))
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,100 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
+import org.andy.democloudgatewayresource.dto.UserinfoResponseDTO;
+import org.andy.democloudgatewayresource.exception.ConcurrentUserUpdateException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Covers the version check and the no-op path of patchUser. Needs the database from application.yml;
+// seeded rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+class UserServicePatchTest {
+
+    private static final String USERNAME = "ZZPATCH1";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("patch-test", "n/a", "ROLE_ADMIN"));
+        jdbc.update("insert into users (username, password, enabled) values (?, '{noop}patch', true)", USERNAME);
+        jdbc.update("insert into userinfo (username, full_name, department, created_at, updated_at) "
+                + "values (?, 'Patch Test', 'QA', now(), date_trunc('milliseconds', now()) - interval '1 hour')", USERNAME);
+        jdbc.update("insert into authorities (username, authority) values (?, 'ROLE_USER')", USERNAME);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        for (String table : List.of("authorities", "userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username = ?", USERNAME);
+        }
+    }
+
+    @Test
+    void staleVersionIsRejectedWithoutWriting() {
+        LocalDateTime stored = storedVersion();
+        UserinfoRequestDto patch = UserinfoRequestDto.builder()
+                .department("Sales")
+                .updatedAt(stored.minusSeconds(1))
+                .build();
+
+        assertThatThrownBy(() -> userService.patchUser(USERNAME, patch))
+                .isInstanceOf(ConcurrentUserUpdateException.class);
+        assertThat(storedVersion()).isEqualTo(stored);
+        assertThat(jdbc.queryForObject("select department from userinfo where username = ?", String.class, USERNAME))
+                .isEqualTo("QA");
+    }
+
+    @Test
+    void unchangedValuesAreANoOp() {
+        LocalDateTime stored = storedVersion();
+        UserinfoRequestDto patch = UserinfoRequestDto.builder()
+                .fullName("Patch Test")
+                .department("QA")
+                .updatedAt(stored)
+                .build();
+
+        UserinfoResponseDTO user = userService.patchUser(USERNAME, patch);
+
+        assertThat(user.updatedAt()).isEqualTo(stored);
+        assertThat(storedVersion()).isEqualTo(stored);
+    }
+
+    @Test
+    void currentVersionWritesTheChangeAndMovesTheVersion() {
+        LocalDateTime stored = storedVersion();
+        UserinfoRequestDto patch = UserinfoRequestDto.builder()
+                .department("Sales")
+                .updatedAt(stored)
+                .build();
+
+        UserinfoResponseDTO user = userService.patchUser(USERNAME, patch);
+
+        assertThat(user.department()).isEqualTo("Sales");
+        assertThat(user.fullName()).isEqualTo("Patch Test");
+        assertThat(user.updatedAt()).isAfter(stored).isEqualTo(storedVersion());
+    }
+
+    private LocalDateTime storedVersion() {
+        return jdbc.queryForObject("select updated_at from userinfo where username = ?", LocalDateTime.class, USERNAME);
+    }
+}
@@ -0,0 +1,189 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserCredentialsDTO;
+import org.andy.democloudgatewayresource.dto.UserRequestDTO;
+import org.andy.democloudgatewayresource.dto.UserinfoRequestDto;
+import org.andy.democloudgatewayresource.record.PageCursor;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs EXPLAIN on every statement UserService issues against a seeded Postgres, and fails when the planner
+// expects a sequential scan to read more than MAX_SEQ_SCAN_ROWS rows, i.e. when a query pattern has lost its index.
+// Unfiltered and role-only exact counts are left out: they read most of the join by nature, which is why
+// the page serves them from UserAggregatesService. Needs the database from application.yml; seeded rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+@Import(UserServiceQueryPlanTest.RecordingConfig.class)
+class UserServiceQueryPlanTest {
+
+    private static final int SEED_ROWS = 20_000;
+    private static final long MAX_SEQ_SCAN_ROWS = 1_000;
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\S+)");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserAggregatesService userAggregates;
+
+    @Autowired
+    private DSLContext dslContext;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private RecordingListener recorder;
+
+    private String createdUsername;
+
+    @BeforeEach
+    void seed() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("plan-test", "n/a", "ROLE_ADMIN"));
+        jdbc.update("""
+                insert into users (username, password, enabled)
+                select 'PLAN' || lpad(i::text, 7, '0'), '{noop}plan', i % 10 <> 0
+                from generate_series(1, ?) i""", SEED_ROWS);
+        jdbc.update("""
+                insert into authorities (username, authority)
+                select 'PLAN' || lpad(i::text, 7, '0'),
+                       case when i % 200 = 0 then 'ROLE_ADMIN' when i % 4 = 0 then 'ROLE_RECRUITER' else 'ROLE_USER' end
+                from generate_series(1, ?) i""", SEED_ROWS);
+        jdbc.update("""
+                insert into userinfo (username, full_name, email, department, created_at, updated_at)
+                select 'PLAN' || lpad(i::text, 7, '0'),
+                       (array['Nguyễn', 'Trần', 'Lê', 'Phạm'])[1 + i % 4] || ' ' ||
+                       (array['Văn', 'Thị', 'Đức'])[1 + i % 3] || ' ' ||
+                       (array['Anh', 'Bình', 'Hằng', 'Hà', 'Hạnh'])[1 + i % 5],
+                       md5(i::text) || '@example.com',
+                       (array['IT', 'HR', 'Finance', 'Sales', 'Marketing'])[1 + i % 5],
+                       now(),
+                       now()
+                from generate_series(1, ?) i""", SEED_ROWS);
+        // VACUUM also flushes the GIN pending list, which otherwise makes the trigram index look expensive
+        jdbc.execute("vacuum analyze users, authorities, userinfo");
+        userAggregates.reconcile();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        jdbc.update("delete from email_outbox where recipient = 'plan-test@example.com'");
+        for (String table : List.of("authorities", "userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username like 'PLAN%' or username = ?", createdUsername);
+        }
+        jdbc.execute("analyze users, authorities, userinfo");
+    }
+
+    @Test
+    void userServiceQueriesUseIndexes() {
+        String middle = "PLAN%07d".formatted(SEED_ROWS / 2);
+        // Selective search terms: a fragment of one seeded email address
+        String search = jdbc.queryForObject("select left(md5('12345'), 10)", String.class);
+
+        recorder.start();
+        userService.getUsersPage(0, 20, "", "");
+        userService.getUsersPage(3, 20, "", "ROLE_RECRUITER");
+        userService.getUsersPage(0, 20, "", "ROLE_ADMIN");
+        userService.getUsersPage(0, 20, search, "");
+        userService.getUsersSlice("", 20, "", "", CountMode.NONE);
+        userService.getUsersSlice(PageCursor.after(middle, "ROLE_USER").encode(), 20, "", "ROLE_ADMIN", CountMode.ESTIMATE);
+        userService.getUsersSlice(PageCursor.before(middle, "ROLE_USER").encode(), 20, search, "", CountMode.EXACT);
+        userService.getUserByUsername(middle);
+        userService.patchUser(middle, UserinfoRequestDto.builder().department("Legal").note("moved").build());
+        userService.updateUserStatus(middle, "inactive");
+        userService.deleteUser(middle);
+        UserCredentialsDTO created = userService.createUser(UserRequestDTO.builder()
+                .fullName("Plan Test User").email("plan-test@example.com").role("user").department("IT")
+                .dob(LocalDate.of(1990, 1, 1)).build());
+        createdUsername = created.username();
+        List<String> statements = recorder.stop();
+
+        assertThat(statements).isNotEmpty();
+        List<String> violations = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = String.join("\n", dslContext.fetch("explain " + sql).getValues(0, String.class));
+            Matcher seqScan = SEQ_SCAN.matcher(plan);
+            while (seqScan.find()) {
+                // The plan's rows= is what survives the filter, a sequential scan reads the whole table
+                if (tableRows(seqScan.group(1)) > MAX_SEQ_SCAN_ROWS) {
+                    violations.add(sql + "\n" + plan);
+                }
+            }
+        }
+        assertThat(violations).as("sequential scans above %d rows", MAX_SEQ_SCAN_ROWS).isEmpty();
+    }
+
+    private long tableRows(String table) {
+        Long rows = jdbc.queryForObject("select reltuples::bigint from pg_class where oid = to_regclass(?)",
+                Long.class, table);
+        return rows == null ? 0 : rows;
+    }
+
+    // Collects the statements UserService executes between start() and stop(), rendered with inlined values
+    // at execution time since jOOQ query objects are mutable builders
+    static class RecordingListener implements ExecuteListener {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private volatile Thread recording;
+
+        void start() {
+            statements.clear();
+            recording = Thread.currentThread();
+        }
+
+        List<String> stop() {
+            recording = null;
+            return List.copyOf(statements);
+        }
+
+        // Only the test thread, so the outbox dispatcher and scheduled reconcile are not picked up.
+        // CountMode.ESTIMATE already runs an EXPLAIN, that one is skipped.
+        @Override
+        public void executeStart(ExecuteContext ctx) {
+            if (recording == Thread.currentThread() && ctx.query() != null) {
+                String sql = ctx.dsl().renderInlined(ctx.query());
+                if (!sql.regionMatches(true, 0, "explain", 0, 7)) {
+                    statements.add(sql);
+                }
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+
+        @Bean
+        ExecuteListenerProvider recordingListenerProvider(RecordingListener recordingListener) {
+            return new DefaultExecuteListenerProvider(recordingListener);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.andy.democloudgatewayresource.service;
+
+import org.andy.democloudgatewayresource.dto.UserinfoRows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Walks the cursor pages over a user with two roles whose rows fall on both sides of a page edge.
+// Needs the database from application.yml; seeded rows are removed.
+@SpringBootTest(properties = "app.email.sender=log")
+class UserServiceSliceTest {
+
+    // Unique enough that the search filter only sees the seeded users
+    private static final String PREFIX = "ZZSLICE";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void seed() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("slice-test", "n/a", "ROLE_ADMIN"));
+        for (String username : List.of(PREFIX + "1", PREFIX + "2", PREFIX + "3")) {
+            jdbc.update("insert into users (username, password, enabled) values (?, '{noop}slice', true)", username);
+            jdbc.update("insert into userinfo (username, full_name, created_at, updated_at) values (?, ?, now(), now())",
+                    username, "Slice " + username);
+        }
+        jdbc.update("insert into authorities (username, authority) values (?, 'ROLE_USER'), (?, 'ROLE_ADMIN'), (?, 'ROLE_USER'), (?, 'ROLE_USER')",
+                PREFIX + "1", PREFIX + "2", PREFIX + "2", PREFIX + "3");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        for (String table : List.of("authorities", "userinfo", "users")) {
+            jdbc.update("delete from " + table + " where username like ?", PREFIX + "%");
+        }
+    }
+
+    @Test
+    void cursorPagesKeepEveryRoleRowAcrossThePageEdge() {
+        List<String> expected = List.of(
+                PREFIX + "1/ROLE_USER", PREFIX + "2/ROLE_ADMIN", PREFIX + "2/ROLE_USER", PREFIX + "3/ROLE_USER");
+
+        // Page size 2 puts the edge between ZZSLICE2's two rows
+        List<String> forward = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            Map<String, Object> slice = userService.getUsersSlice(cursor, 2, PREFIX.toLowerCase(), "", CountMode.EXACT);
+            assertThat(slice.get("totalElements")).isEqualTo(4);
+            forward.addAll(rows(slice));
+            cursors.add((String) slice.get("previousCursor"));
+            cursor = (String) slice.get("nextCursor");
+        }
+        assertThat(forward).containsExactlyElementsOf(expected);
+
+        // Back from the last page
+        Map<String, Object> previous = userService.getUsersSlice(cursors.getLast(), 2, PREFIX.toLowerCase(), "",
+                CountMode.NONE);
+        assertThat(rows(previous)).containsExactlyElementsOf(expected.subList(0, 2));
+    }
+
+    private static List<String> rows(Map<String, Object> slice) {
+        return ((UserinfoRows) slice.get("content")).rows().stream()
+                .map(row -> row.get(UserinfoSelect.USERNAME) + "/" + row.get(UserinfoSelect.AUTHORITY))
+                .toList();
+    }
+}